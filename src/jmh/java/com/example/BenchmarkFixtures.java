@@ -0,0 +1,276 @@
+package com.example;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Dữ liệu giả lập dùng chung cho các benchmark: MontoyaApi không ghi log, request giả và các bộ request mẫu.
+ * <p>
+ * Request giả trả về danh sách tham số đã được tính sẵn cho {@code parameters(...)}, vì vậy benchmark chỉ đo
+ * chi phí của extension (giới hạn, quét độ sâu, duyệt body có cấu trúc), không tính chi phí parser của Burp.
+ * Mọi dữ liệu được sinh từ seed cố định để các lần chạy so sánh được với nhau.
+ */
+final class BenchmarkFixtures {
+    static final long SEED = 42L;
+    static final String HOST = "api.example.com";
+    static final String DEFAULT_EXCLUDE_EXTENSIONS = ".js,.svg,.css,.png,.jpg,.ttf,.ico,.html,.map,.gif,.woff2,.bcmap,.jpeg,.woff";
+    static final String DEFAULT_EXCLUDE_STATUS_CODES = "404,405";
+
+    private static final String[] RESOURCES = {"users", "orders", "products", "invoices", "accounts", "carts", "reviews", "shipments"};
+    private static final String[] ASSET_SUFFIXES = {".js", ".css", ".png", ".woff2", ".map", ".svg"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Bộ request mẫu.
+     */
+    enum Corpus {
+        /**
+         * GET với vài tham số trên query string, không có body.
+         */
+        SMALL_GET,
+        /**
+         * POST JSON khoảng 256 KB: một mảng object lồng nhau.
+         */
+        LARGE_JSON,
+        /**
+         * GET tới path REST nhiều segment với id/uuid ở giữa, vài tham số query.
+         */
+        REST_PATH
+    }
+
+    /**
+     * MontoyaApi giả không ghi log ra đâu cả.
+     */
+    static MontoyaApi silentApi() {
+        return new FakeMontoya(null).api();
+    }
+
+    static HttpRequest request(Corpus corpus) {
+        Random random = new Random(SEED);
+        switch (corpus) {
+            case SMALL_GET:
+                return request("GET", "/search?q=shoes&page=2&sort=price", ContentType.NONE, new byte[0],
+                        params(HttpParameterType.URL, "q", "page", "sort"), Collections.emptyList());
+            case LARGE_JSON:
+                byte[] body = largeJson(random, 256 * 1024);
+                return request("POST", "/api/v1/orders/import", ContentType.JSON, body,
+                        params(HttpParameterType.URL, "dryRun"), params(HttpParameterType.JSON, jsonLeafNames()));
+            case REST_PATH:
+            default:
+                return request("GET", restPaths(random, 1)[0] + "?expand=items&fields=id,name", ContentType.NONE, new byte[0],
+                        params(HttpParameterType.URL, "expand", "fields"), Collections.emptyList());
+        }
+    }
+
+    /**
+     * Các path REST nhiều segment, xen kẽ id số, hex và uuid, ví dụ
+     * {@code /api/v2/users/1234/orders/9f86d081/items/550e8400-e29b-41d4-a716-446655440000/reviews}.
+     */
+    static String[] restPaths(Random random, int count) {
+        String[] paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder("/api/v").append(1 + random.nextInt(3));
+            int pairs = 3 + random.nextInt(4);
+            for (int p = 0; p < pairs; p++) {
+                sb.append('/').append(RESOURCES[random.nextInt(RESOURCES.length)]).append('/');
+                switch (random.nextInt(3)) {
+                    case 0:
+                        sb.append(random.nextInt(1_000_000));
+                        break;
+                    case 1:
+                        sb.append(Long.toHexString(random.nextLong() | Long.MIN_VALUE));
+                        break;
+                    default:
+                        sb.append(new UUID(random.nextLong(), random.nextLong()));
+                        break;
+                }
+            }
+            sb.append('/').append(RESOURCES[random.nextInt(RESOURCES.length)]);
+            paths[i] = sb.toString();
+        }
+        return paths;
+    }
+
+    /**
+     * Trộn path REST với đường dẫn tài nguyên tĩnh (khoảng một nửa) để đo bộ lọc đuôi file ở cả hai nhánh.
+     */
+    static String[] mixedPaths(Random random, int count) {
+        String[] paths = restPaths(random, count);
+        for (int i = 0; i < count; i += 2) {
+            paths[i] = "/static/" + RESOURCES[random.nextInt(RESOURCES.length)] + "/bundle." + i
+                    + ASSET_SUFFIXES[random.nextInt(ASSET_SUFFIXES.length)];
+        }
+        return paths;
+    }
+
+    /**
+     * Các bộ tên tham số ngẫu nhiên, mỗi bộ {@code size} tên lấy từ {@code vocabulary} tên khác nhau.
+     */
+    static List<Set<String>> paramSets(Random random, int count, int size, int vocabulary) {
+        List<Set<String>> sets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Set<String> set = new LinkedHashSet<>();
+            while (set.size() < Math.min(size, vocabulary)) {
+                set.add("param" + random.nextInt(vocabulary));
+            }
+            sets.add(set);
+        }
+        return sets;
+    }
+
+    /**
+     * Body JSON dạng {@code {"orders":[{"id":..,"customer":{..},"items":[{..}],"meta":{..}}, ...]}} có kích thước
+     * xấp xỉ {@code targetBytes}.
+     */
+    static byte[] largeJson(Random random, int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes + 1024);
+        sb.append("{\"orders\":[");
+        for (int i = 0; sb.length() < targetBytes; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(random.nextInt(1_000_000))
+                    .append(",\"customer\":{\"name\":\"Customer ").append(i)
+                    .append("\",\"email\":\"user").append(i).append("@example.com\",\"address\":{\"city\":\"Ha Noi\",\"zip\":\"")
+                    .append(10000 + random.nextInt(90000)).append("\"}},\"items\":[");
+            int items = 1 + random.nextInt(5);
+            for (int j = 0; j < items; j++) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"sku\":\"SKU-").append(random.nextInt(100_000))
+                        .append("\",\"quantity\":").append(1 + random.nextInt(9))
+                        .append(",\"price\":").append(random.nextInt(100_000) / 100.0).append('}');
+            }
+            sb.append("],\"meta\":{\"note\":\"Giao hàng \\\"nhanh\\\"\",\"tags\":[\"a\",\"b\"],\"paid\":")
+                    .append(random.nextBoolean()).append("}}");
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tên phẳng mà parser của Burp trả về cho body của {@link #largeJson}.
+     */
+    private static String[] jsonLeafNames() {
+        return new String[]{"id", "name", "email", "city", "zip", "sku", "quantity", "price", "note", "tags", "paid"};
+    }
+
+    static List<ParsedHttpParameter> params(HttpParameterType type, String... names) {
+        List<ParsedHttpParameter> params = new ArrayList<>(names.length);
+        for (String name : names) {
+            params.add(FakeMontoya.proxy(ParsedHttpParameter.class, (method, args) -> {
+                switch (method) {
+                    case "name":
+                        return name;
+                    case "value":
+                        return "";
+                    case "type":
+                        return type;
+                    default:
+                        throw new UnsupportedOperationException(method);
+                }
+            }));
+        }
+        return params;
+    }
+
+    /**
+     * Request giả tới {@link #HOST}.
+     */
+    static HttpRequest request(String method, String pathWithQuery, ContentType contentType, byte[] body,
+                               List<ParsedHttpParameter> urlParams, List<ParsedHttpParameter> bodyParams) {
+        return request(method, HOST, pathWithQuery, contentType, body, urlParams, bodyParams);
+    }
+
+    /**
+     * Request giả tới {@code https://host}; {@code parameters(type)} trả về phần tương ứng trong
+     * {@code urlParams}/{@code bodyParams}.
+     */
+    static HttpRequest request(String method, String host, String pathWithQuery, ContentType contentType, byte[] body,
+                               List<ParsedHttpParameter> urlParams, List<ParsedHttpParameter> bodyParams) {
+        HttpService service = FakeMontoya.proxy(HttpService.class, (name, args) -> {
+            switch (name) {
+                case "host":
+                    return host;
+                case "port":
+                    return 443;
+                case "secure":
+                    return true;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+        ByteArray bodyBytes = byteArray(body);
+        Map<HttpParameterType, List<ParsedHttpParameter>> byType = new EnumMap<>(HttpParameterType.class);
+        for (ParsedHttpParameter param : urlParams) {
+            byType.computeIfAbsent(param.type(), t -> new ArrayList<>()).add(param);
+        }
+        for (ParsedHttpParameter param : bodyParams) {
+            byType.computeIfAbsent(param.type(), t -> new ArrayList<>()).add(param);
+        }
+        List<ParsedHttpParameter> all = new ArrayList<>(urlParams);
+        all.addAll(bodyParams);
+        int query = pathWithQuery.indexOf('?');
+        String pathOnly = query < 0 ? pathWithQuery : pathWithQuery.substring(0, query);
+        String bodyText = new String(body, StandardCharsets.UTF_8);
+        return FakeMontoya.proxy(HttpRequest.class, (name, args) -> {
+            switch (name) {
+                case "method":
+                    return method;
+                case "path":
+                    return pathWithQuery;
+                case "pathWithoutQuery":
+                    return pathOnly;
+                case "url":
+                    return "https://" + host + pathWithQuery;
+                case "httpService":
+                    return service;
+                case "contentType":
+                    return contentType;
+                case "body":
+                    return bodyBytes;
+                case "bodyToString":
+                    return bodyText;
+                case "parameters":
+                    if (args == null || args.length == 0) {
+                        return all;
+                    }
+                    return byType.getOrDefault((HttpParameterType) args[0], Collections.emptyList());
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    static ByteArray byteArray(byte[] bytes) {
+        return FakeMontoya.proxy(ByteArray.class, (name, args) -> {
+            switch (name) {
+                case "length":
+                    return bytes.length;
+                case "getBytes":
+                    return bytes;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo hai thao tác ghi chính của {@link DatabaseManager} trên một CSDL tạm đã có sẵn {@code endpoints} API,
+ * mỗi API 8 tham số lấy từ 300 tên, với thông số SQLite mặc định.
+ * <p>
+ * {@link #insertNewEndpoint} và {@link #observeThenScan} thêm dữ liệu mới ở mỗi lần gọi nên CSDL lớn dần trong
+ * lúc đo, giống lịch sử proxy thật; hai phép đo còn lại không thay đổi dữ liệu.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DatabaseBenchmark {
+    private static final int PARAMS_PER_API = 8;
+    private static final int PARAM_VOCABULARY = 300;
+
+    @Param({"1000", "20000"})
+    public int endpoints;
+
+    private File directory;
+    private DatabaseManager db;
+    private String[] paths;
+    private List<Set<String>> params;
+    private int next;
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recheck-bench").toFile();
+        db = new DatabaseManager(BenchmarkFixtures.silentApi());
+        db.initialize(new File(directory, "bench.db").getAbsolutePath());
+        Random random = new Random(BenchmarkFixtures.SEED);
+        paths = BenchmarkFixtures.restPaths(random, endpoints);
+        params = BenchmarkFixtures.paramSets(random, endpoints, PARAMS_PER_API, PARAM_VOCABULARY);
+        for (int i = 0; i < endpoints; i++) {
+            db.insertOrUpdateApi("GET", BenchmarkFixtures.HOST, paths[i], params.get(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private int nextIndex() {
+        next = next + 1 == endpoints ? 0 : next + 1;
+        return next;
+    }
+
+    /**
+     * Request lặp lại tới một API đã biết, không có tham số mới (trường hợp phổ biến nhất).
+     */
+    @Benchmark
+    public boolean insertExisting() {
+        int i = nextIndex();
+        return db.insertOrUpdateApi("GET", BenchmarkFixtures.HOST, paths[i], params.get(i));
+    }
+
+    /**
+     * Request tới một API chưa từng thấy.
+     */
+    @Benchmark
+    public boolean insertNewEndpoint() {
+        int i = nextIndex();
+        return db.insertOrUpdateApi("POST", BenchmarkFixtures.HOST, paths[i] + "/" + sequence++, params.get(i));
+    }
+
+    /**
+     * Request của Scanner không khớp tham số chưa quét nào.
+     */
+    @Benchmark
+    public boolean scanWithoutMatch() {
+        int i = nextIndex();
+        return db.processScannedParameters("GET", BenchmarkFixtures.HOST, paths[i], Set.of("scanner_probe"));
+    }
+
+    /**
+     * Một tham số mới xuất hiện trên API đã biết rồi được Scanner quét ngay sau đó.
+     */
+    @Benchmark
+    public boolean observeThenScan() {
+        int i = nextIndex();
+        Set<String> observed = new HashSet<>(params.get(i));
+        String fresh = "fresh" + sequence++;
+        observed.add(fresh);
+        db.insertOrUpdateApi("GET", BenchmarkFixtures.HOST, paths[i], observed);
+        return db.processScannedParameters("GET", BenchmarkFixtures.HOST, paths[i], Set.of(fresh));
+    }
+}
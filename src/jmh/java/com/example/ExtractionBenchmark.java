@@ -0,0 +1,49 @@
+package com.example;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo bước trích xuất tên tham số ({@link ParameterExtractor#extract}) với từng bộ request mẫu,
+ * ở chế độ tên phẳng và chế độ đường dẫn đầy đủ (structured).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExtractionBenchmark {
+    @Param({"SMALL_GET", "LARGE_JSON", "REST_PATH"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean structured;
+
+    private ParameterExtractor extractor;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        extractor = new ParameterExtractor(ParameterExtractor.DEFAULT_MAX_BODY_KB, ParameterExtractor.DEFAULT_MAX_JSON_DEPTH,
+                ParameterExtractor.DEFAULT_MAX_PARAMS, false, structured);
+        request = BenchmarkFixtures.request(BenchmarkFixtures.Corpus.valueOf(corpus));
+    }
+
+    @Benchmark
+    public ParameterExtractor.Result extract() {
+        return extractor.extract(request);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.Registration;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.extension.Extension;
+import burp.api.montoya.extension.ExtensionUnloadingHandler;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Persistence;
+import burp.api.montoya.scope.Scope;
+import burp.api.montoya.ui.UserInterface;
+
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * MontoyaApi giả chạy trong tiến trình, đủ để nạp extension ngoài Burp (benchmark, harness tải).
+ * <p>
+ * Ghi nhận {@link HttpHandler} và {@link ExtensionUnloadingHandler} được đăng ký, lưu extension data trong bộ nhớ,
+ * quyết định scope bằng một {@link Predicate} trên URL và bỏ qua tab giao diện. Các phương thức tĩnh của Montoya
+ * như {@code ResponseReceivedAction.continueWith} cần một object factory của Burp; {@link #installObjectFactory()}
+ * cài một factory trả về null cho mọi lời gọi.
+ */
+final class FakeMontoya {
+    private final Map<String, String> extensionData = new ConcurrentHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile Predicate<String> scope = url -> true;
+    private volatile HttpHandler httpHandler;
+    private volatile ExtensionUnloadingHandler unloadingHandler;
+    private final MontoyaApi api;
+
+    /**
+     * @param log Nơi ghi log của extension; null để bỏ qua (lỗi vẫn được đếm).
+     */
+    FakeMontoya(PrintStream log) {
+        Registration registration = proxy(Registration.class, (method, args) -> method.equals("isRegistered") ? true : null);
+        Logging logging = proxy(Logging.class, (method, args) -> {
+            if (method.equals("logToError")) {
+                errors.incrementAndGet();
+            }
+            if (log != null) {
+                log.println((method.equals("logToError") ? "[error] " : "[output] ") + args[0]);
+                if (args.length > 1 && args[1] instanceof Throwable) {
+                    ((Throwable) args[1]).printStackTrace(log);
+                }
+            }
+            return null;
+        });
+        Extension extension = proxy(Extension.class, (method, args) -> {
+            if (method.equals("registerUnloadingHandler")) {
+                unloadingHandler = (ExtensionUnloadingHandler) args[0];
+                return registration;
+            }
+            return null;
+        });
+        Http http = proxy(Http.class, (method, args) -> {
+            if (method.equals("registerHttpHandler")) {
+                httpHandler = (HttpHandler) args[0];
+                return registration;
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        Scope scopeApi = proxy(Scope.class, (method, args) -> {
+            if (method.equals("isInScope")) {
+                return scope.test((String) args[0]);
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        UserInterface userInterface = proxy(UserInterface.class, (method, args) -> {
+            if (method.equals("registerSuiteTab")) {
+                return registration;
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        PersistedObject persistedObject = proxy(PersistedObject.class, (method, args) -> {
+            switch (method) {
+                case "getString":
+                    return extensionData.get((String) args[0]);
+                case "setString":
+                    if (args[1] == null) {
+                        extensionData.remove((String) args[0]);
+                    } else {
+                        extensionData.put((String) args[0], (String) args[1]);
+                    }
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+        Persistence persistence = proxy(Persistence.class, (method, args) -> {
+            if (method.equals("extensionData")) {
+                return persistedObject;
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        api = proxy(MontoyaApi.class, (method, args) -> {
+            switch (method) {
+                case "logging":
+                    return logging;
+                case "extension":
+                    return extension;
+                case "http":
+                    return http;
+                case "scope":
+                    return scopeApi;
+                case "userInterface":
+                    return userInterface;
+                case "persistence":
+                    return persistence;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+    }
+
+    MontoyaApi api() {
+        return api;
+    }
+
+    /**
+     * Đặt chuỗi extension data {@code key} (ví dụ {@code settings}) trước khi nạp extension.
+     */
+    void putExtensionData(String key, String value) {
+        extensionData.put(key, value);
+    }
+
+    void setScope(Predicate<String> scope) {
+        this.scope = scope;
+    }
+
+    HttpHandler httpHandler() {
+        return httpHandler;
+    }
+
+    ExtensionUnloadingHandler unloadingHandler() {
+        return unloadingHandler;
+    }
+
+    /**
+     * Số lần extension gọi {@code logToError}.
+     */
+    long errorCount() {
+        return errors.get();
+    }
+
+    /**
+     * Cài object factory giả cho các phương thức tĩnh của Montoya nếu chưa có (ngoài Burp).
+     */
+    static void installObjectFactory() {
+        if (ObjectFactoryLocator.FACTORY == null) {
+            ObjectFactoryLocator.FACTORY = proxy(MontoyaObjectFactory.class, (method, args) -> null);
+        }
+    }
+
+    /**
+     * Response giả cho một request; annotation được ghi vào một đối tượng riêng của response.
+     */
+    static HttpResponseReceived response(HttpRequest request, int statusCode, ToolType toolType) {
+        ToolSource toolSource = proxy(ToolSource.class, (method, args) -> {
+            switch (method) {
+                case "toolType":
+                    return toolType;
+                case "isFromTool":
+                    for (Object candidate : (Object[]) args[0]) {
+                        if (candidate == toolType) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+        Object[] annotationState = new Object[2];
+        Annotations annotations = proxy(Annotations.class, (method, args) -> {
+            switch (method) {
+                case "notes":
+                    return annotationState[0];
+                case "hasNotes":
+                    return annotationState[0] != null;
+                case "setNotes":
+                    annotationState[0] = args[0];
+                    return null;
+                case "highlightColor":
+                    return annotationState[1];
+                case "hasHighlightColor":
+                    return annotationState[1] != null;
+                case "setHighlightColor":
+                    annotationState[1] = args[0];
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+        short status = (short) statusCode;
+        return proxy(HttpResponseReceived.class, (method, args) -> {
+            switch (method) {
+                case "statusCode":
+                    return status;
+                case "initiatingRequest":
+                    return request;
+                case "toolSource":
+                    return toolSource;
+                case "annotations":
+                    return annotations;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+    }
+
+    /**
+     * Xử lý lời gọi của một proxy giả, theo tên phương thức.
+     */
+    interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    /**
+     * Tạo một đối tượng giả cho interface {@code type}; {@code hashCode}, {@code equals}, {@code toString}
+     * được xử lý sẵn, mọi phương thức khác được chuyển cho {@code handler}.
+     */
+    static <T> T proxy(Class<T> type, Handler handler) {
+        Object instance = Proxy.newProxyInstance(FakeMontoya.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        case "toString":
+                            return type.getSimpleName();
+                        default:
+                            return handler.invoke(method.getName(), args);
+                    }
+                });
+        return type.cast(instance);
+    }
+}
@@ -0,0 +1,306 @@
+package com.example;
+
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Harness tải chạy ngoài Burp: nạp {@link RecheckScanApiExtension} với {@link FakeMontoya}, phát lại một file
+ * traffic (xem {@link TrafficFile}) qua HTTP handler đã đăng ký với tốc độ cấu hình được, rồi báo cáo thông lượng,
+ * độ trễ của handler (p50/p99/p99.9/max), tốc độ ghi CSDL và mức tăng heap.
+ * <p>
+ * Khi có {@code --rate}, độ trễ được tính từ thời điểm request lẽ ra được gửi theo lịch chứ không phải lúc nó thực sự
+ * được gửi, để một lần handler bị nghẽn cũng được tính vào các request phải xếp hàng sau nó (tránh coordinated omission).
+ * <p>
+ * Chạy sau khi build với profile {@code benchmark}:
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.HandlerHarness --requests 200000 --rate 5000 --threads 8
+ * java -cp target/benchmarks.jar com.example.HandlerHarness --traffic traffic.tsv --set extraction_async=true
+ * </pre>
+ * Tùy chọn:
+ * <ul>
+ *     <li>{@code --traffic FILE}: phát lại file traffic; nếu không có, traffic được sinh ngẫu nhiên;</li>
+ *     <li>{@code --requests N}, {@code --endpoints N}, {@code --seed N}: kích thước và seed của traffic sinh ra;</li>
+ *     <li>{@code --write-traffic FILE}: lưu traffic đã sinh để phát lại về sau;</li>
+ *     <li>{@code --rate N}: số request mỗi giây (0 = nhanh nhất có thể), {@code --threads N}: số luồng gọi handler;</li>
+ *     <li>{@code --scope a.com,b.com}: hậu tố host nằm trong scope (mặc định {@code example.com});</li>
+ *     <li>{@code --set key=value}: cài đặt của extension (như trong extension data), có thể lặp lại;</li>
+ *     <li>{@code --db FILE}: file CSDL (mặc định một file tạm bị xóa khi kết thúc), {@code --verbose}: in log.</li>
+ * </ul>
+ */
+public final class HandlerHarness {
+    private static final long DRAIN_TIMEOUT_MILLIS = 60_000;
+
+    private String trafficFile;
+    private String writeTrafficFile;
+    private int requests = 100_000;
+    private int endpoints = 2_000;
+    private long seed = BenchmarkFixtures.SEED;
+    private int rate;
+    private int threads = 4;
+    private String[] scopeSuffixes = {"example.com"};
+    private final Properties settings = new Properties();
+    private String dbPath;
+    private boolean verbose;
+
+    private HandlerHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        HandlerHarness harness = new HandlerHarness();
+        try {
+            harness.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: HandlerHarness [--traffic FILE | --requests N --endpoints N --seed N [--write-traffic FILE]]"
+                    + " [--rate N] [--threads N] [--scope SUFFIXES] [--set KEY=VALUE]... [--db FILE] [--verbose]");
+            System.exit(2);
+        }
+        harness.run();
+        // Các luồng không phải daemon của Swing (Timer, EDT) giữ JVM sống nếu không thoát tường minh.
+        System.exit(0);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--verbose")) {
+                verbose = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--traffic":
+                    trafficFile = value;
+                    break;
+                case "--write-traffic":
+                    writeTrafficFile = value;
+                    break;
+                case "--requests":
+                    requests = positive(arg, value);
+                    break;
+                case "--endpoints":
+                    endpoints = positive(arg, value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--rate":
+                    rate = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = positive(arg, value);
+                    break;
+                case "--scope":
+                    scopeSuffixes = value.split(",");
+                    break;
+                case "--set":
+                    int eq = value.indexOf('=');
+                    if (eq <= 0) {
+                        throw new IllegalArgumentException("Expected KEY=VALUE for --set: " + value);
+                    }
+                    settings.setProperty(value.substring(0, eq), value.substring(eq + 1));
+                    break;
+                case "--db":
+                    dbPath = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private static int positive(String option, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(option + " must be positive");
+        }
+        return parsed;
+    }
+
+    private void run() throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        List<TrafficFile.Entry> entries;
+        if (trafficFile != null) {
+            entries = TrafficFile.read(Path.of(trafficFile));
+        } else {
+            entries = TrafficFile.generate(seed, requests, endpoints);
+            if (writeTrafficFile != null) {
+                TrafficFile.write(Path.of(writeTrafficFile), entries);
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Traffic is empty");
+        }
+        List<HttpResponseReceived> responses = new ArrayList<>(entries.size());
+        for (TrafficFile.Entry entry : entries) {
+            responses.add(FakeMontoya.response(TrafficFile.toRequest(entry), entry.status, entry.tool));
+        }
+
+        File tempDirectory = null;
+        if (dbPath == null) {
+            tempDirectory = Files.createTempDirectory("recheck-harness").toFile();
+            dbPath = new File(tempDirectory, "harness.db").getAbsolutePath();
+        }
+        // Giống giá trị mặc định trên tab Settings, trừ khi được đặt bằng --set.
+        if (settings.getProperty("exclude_extensions") == null) {
+            settings.setProperty("exclude_extensions", BenchmarkFixtures.DEFAULT_EXCLUDE_EXTENSIONS);
+        }
+        if (settings.getProperty("exclude_status_code") == null) {
+            settings.setProperty("exclude_status_code", BenchmarkFixtures.DEFAULT_EXCLUDE_STATUS_CODES);
+        }
+        for (String os : new String[]{"windows", "linux", "mac", "other"}) {
+            settings.setProperty("outputPath." + os, dbPath);
+        }
+        StringWriter settingsText = new StringWriter();
+        settings.store(settingsText, null);
+
+        FakeMontoya.installObjectFactory();
+        FakeMontoya fake = new FakeMontoya(verbose ? System.err : null);
+        fake.putExtensionData("settings", settingsText.toString());
+        fake.setScope(this::inScope);
+
+        RecheckScanApiExtension extension = new RecheckScanApiExtension();
+        extension.initialize(fake.api());
+        // Chờ giao diện được dựng và nạp dữ liệu ban đầu trên EDT.
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        HttpHandler handler = fake.httpHandler();
+        IngestionPipeline pipeline = extension.ingestionPipeline();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+        long processedBefore = pipeline.processedCount();
+        long batchesBefore = pipeline.batchCount();
+
+        long[] latencies = new long[responses.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong handlerErrors = new AtomicLong();
+        long interval = rate > 0 ? 1_000_000_000L / rate : 0;
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < latencies.length) {
+                    long due = start + i * interval;
+                    if (interval > 0) {
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    long begin = System.nanoTime();
+                    try {
+                        handler.handleHttpResponseReceived(responses.get(i));
+                    } catch (RuntimeException e) {
+                        if (handlerErrors.getAndIncrement() == 0) {
+                            e.printStackTrace();
+                        }
+                    }
+                    latencies[i] = System.nanoTime() - (interval > 0 ? due : begin);
+                }
+            }, "harness-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long replayNanos = System.nanoTime() - start;
+
+        // Chờ luồng ghi ghi hết các sự kiện còn trong hàng đợi.
+        long drainStart = System.nanoTime();
+        long drainDeadline = drainStart + DRAIN_TIMEOUT_MILLIS * 1_000_000L;
+        while (pipeline.processedCount() + pipeline.failedCount() + pipeline.droppedCount() < pipeline.submittedCount()
+                && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        long drainNanos = System.nanoTime() - drainStart;
+        long heapAfter = usedHeapAfterGc(memory);
+        long written = pipeline.processedCount() - processedBefore;
+        long batches = pipeline.batchCount() - batchesBefore;
+        String pipelineSummary = pipeline.metricsSummary();
+
+        fake.unloadingHandler().extensionUnloaded();
+
+        Arrays.sort(latencies);
+        double replaySeconds = replayNanos / 1e9;
+        double totalSeconds = (replayNanos + drainNanos) / 1e9;
+        System.out.printf(Locale.ROOT, "Requests:   %d on %d threads in %.2f s -> %.0f req/s%s%n", latencies.length, threads,
+                replaySeconds, latencies.length / replaySeconds, rate > 0 ? " (target " + rate + " req/s)" : "");
+        System.out.printf(Locale.ROOT, "Handler:    p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.2f ms, %d errors%n",
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.90) / 1e3, percentile(latencies, 0.99) / 1e3,
+                percentile(latencies, 0.999) / 1e3, latencies[latencies.length - 1] / 1e6, handlerErrors.get());
+        System.out.printf(Locale.ROOT, "DB writes:  %d observations in %d batches, %.0f obs/s (drain %.2f s)%n",
+                written, batches, written / totalSeconds, drainNanos / 1e9);
+        System.out.println("Pipeline:   " + pipelineSummary);
+        System.out.printf(Locale.ROOT, "Heap:       %.1f MB -> %.1f MB after GC (%+.1f MB)%n",
+                heapBefore / 1048576.0, heapAfter / 1048576.0, (heapAfter - heapBefore) / 1048576.0);
+        System.out.println("Logged errors: " + fake.errorCount() + ", database: " + dbPath);
+
+        if (tempDirectory != null) {
+            File[] files = tempDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            tempDirectory.delete();
+        }
+    }
+
+    private boolean inScope(String url) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (host == null) {
+            return false;
+        }
+        for (String suffix : scopeSuffixes) {
+            String trimmed = suffix.trim();
+            if (!trimmed.isEmpty() && (host.equals(trimmed) || host.endsWith("." + trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,73 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Đo bước chuẩn hóa path trên các path REST nhiều segment: rule dựng sẵn kèm một rule regex, qua bộ nhớ đệm
+ * và không qua bộ nhớ đệm, và bộ tự học {@link PathTemplateLearner} ở chế độ AUTO.
+ * <p>
+ * {@code paths} nhỏ hơn {@link PathCache#DEFAULT_CAPACITY} thì {@link #normalizeCached} đo trường hợp trúng đệm;
+ * lớn hơn thì đo trường hợp trượt đệm liên tục.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PathNormalizerBenchmark {
+    @Param({"1024", "65536"})
+    public int paths;
+
+    private String[] corpus;
+    private int next;
+    private PathNormalizer normalizer;
+    private PathTemplateLearner learner;
+
+    @Setup
+    public void setUp() {
+        corpus = BenchmarkFixtures.restPaths(new Random(BenchmarkFixtures.SEED), paths);
+        normalizer = PathNormalizer.compile(List.of(
+                PathParameterRule.builtIn("{uuid}", PathParameterRule.Type.UUID, 0),
+                PathParameterRule.builtIn("{hash}", PathParameterRule.Type.HEX, 16),
+                PathParameterRule.builtIn("{id}", PathParameterRule.Type.DIGITS, 0),
+                PathParameterRule.regex("{sku}", Pattern.compile("SKU-\\d+"))));
+        learner = new PathTemplateLearner(PathTemplateLearner.Mode.AUTO, PathTemplateLearner.DEFAULT_THRESHOLD, null);
+    }
+
+    private String nextPath() {
+        String path = corpus[next];
+        next = next + 1 == corpus.length ? 0 : next + 1;
+        return path;
+    }
+
+    @Benchmark
+    public String normalizeCached() {
+        return normalizer.normalize(nextPath());
+    }
+
+    @Benchmark
+    public String normalizeUncached() {
+        return normalizer.normalizeUncached(nextPath());
+    }
+
+    @Benchmark
+    public String learnerObserve() {
+        return learner.observe(BenchmarkFixtures.HOST, nextPath());
+    }
+}
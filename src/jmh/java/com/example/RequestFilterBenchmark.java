@@ -0,0 +1,57 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo {@link RequestFilter} với cài đặt mặc định của extension, trên một nửa path tĩnh và một nửa path REST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestFilterBenchmark {
+    private static final int SIZE = 1024;
+    private static final int[] STATUS_CODES = {200, 200, 200, 201, 204, 301, 302, 304, 400, 401, 403, 404, 405, 500};
+
+    private RequestFilter filter;
+    private String[] paths;
+    private int[] statusCodes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        filter = RequestFilter.compile(BenchmarkFixtures.DEFAULT_EXCLUDE_EXTENSIONS, BenchmarkFixtures.DEFAULT_EXCLUDE_STATUS_CODES);
+        paths = BenchmarkFixtures.mixedPaths(random, SIZE);
+        statusCodes = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            statusCodes[i] = STATUS_CODES[random.nextInt(STATUS_CODES.length)];
+        }
+    }
+
+    @Benchmark
+    public boolean isExcludedByExtension() {
+        next = (next + 1) & (SIZE - 1);
+        return filter.isExcludedByExtension(paths[next]);
+    }
+
+    @Benchmark
+    public boolean isExcludedStatusCode() {
+        next = (next + 1) & (SIZE - 1);
+        return filter.isExcludedStatusCode(statusCodes[next]);
+    }
+}
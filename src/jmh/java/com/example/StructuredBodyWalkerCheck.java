@@ -0,0 +1,145 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Kiểm tra hành vi của {@link StructuredBodyWalker}: đường dẫn lồng nhau và mảng, container rỗng, escape và key
+ * không phải ASCII, body sai cú pháp, các giới hạn {@code TOO_DEEP}/{@code TRUNCATED} và body XML có DOCTYPE.
+ * <p>
+ * Chạy sau khi build với profile {@code benchmark}; thoát với mã 1 nếu có trường hợp sai:
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.StructuredBodyWalkerCheck
+ * </pre>
+ */
+public final class StructuredBodyWalkerCheck {
+    private static final int DEPTH = 32;
+    private static final int NAMES = 100;
+
+    private int passed;
+    private int failed;
+
+    public static void main(String[] args) {
+        StructuredBodyWalkerCheck check = new StructuredBodyWalkerCheck();
+        check.json();
+        check.xml();
+        System.out.println(check.passed + " passed, " + check.failed + " failed");
+        if (check.failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void json() {
+        json("nested object and array paths",
+                "{\"user\":{\"name\":\"a\",\"age\":3},\"items\":[{\"id\":1},{\"id\":2,\"sku\":\"x\"}],\"tags\":[\"a\",\"b\"]}",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "user.name", "user.age", "items[].id", "items[].sku", "tags[]");
+        json("nested arrays", "{\"m\":[[1,2],[3]],\"n\":[{\"p\":[true,null]}]}",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "m[][]", "n[].p[]");
+        json("top-level array", "[{\"id\":1}]", DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "[].id");
+        json("empty containers are leaves", "{\"a\":{},\"b\":[],\"c\":[[]],\"d\":{\"e\":{}}}",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "a", "b[]", "c[][]", "d.e");
+        json("empty root object", "{}", DEPTH, NAMES, StructuredBodyWalker.Result.OK);
+        json("whitespace between tokens", " {\n\t\"a\" : [ 1 , 2 ] ,\r\n \"b\" : { \"c\" : \"x\" } } ",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "a[]", "b.c");
+        json("escaped keys", "{\"a\\\"b\":1,\"\\u0041\\u00e9\":2,\"t\\tx\":3,\"s\\/l\":4,\"v\":\"}\\\"]\"}",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "a\"b", "Aé", "t\tx", "s/l", "v");
+        json("surrogate pair escape", "{\"\\ud83d\\ude00\":1}", DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "\ud83d\ude00");
+        json("non-ASCII keys", "{\"tên\":{\"khóa\":1},\"日本\":[{\"名前\":\"x\"}]}",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "tên.khóa", "日本[].名前");
+
+        json("trailing comma in object", "{\"a\":1,}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("missing comma in array", "[1 2]", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("unterminated object", "{\"a\":1", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("unterminated string", "{\"a\":\"x}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("missing value", "{\"a\":}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("unquoted key", "{a:1}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("mismatched brackets", "{\"a\":[1}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("bad unicode escape", "{\"\\u00zz\":1}", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("trailing data", "{\"a\":1}x", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        json("empty body", "", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+
+        json("depth at limit", "{\"a\":{\"b\":{\"c\":1}}}", 3, NAMES, StructuredBodyWalker.Result.OK,
+                "a.b.c");
+        json("depth over limit", "{\"a\":{\"b\":{\"c\":1}}}", 2, NAMES, StructuredBodyWalker.Result.TOO_DEEP);
+        json("array depth over limit", "[[[1]]]", 2, NAMES, StructuredBodyWalker.Result.TOO_DEEP);
+        json("names at limit", "{\"a\":1,\"b\":2,\"c\":3}", DEPTH, 3, StructuredBodyWalker.Result.OK,
+                "a", "b", "c");
+        json("names over limit", "{\"a\":1,\"b\":2,\"c\":3}", DEPTH, 2, StructuredBodyWalker.Result.TRUNCATED,
+                "a", "b");
+    }
+
+    private void xml() {
+        xml("elements and attributes",
+                "<user id=\"1\"><name>a</name><address zip=\"7\"><city>x</city></address></user>",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "user.@id", "user.name", "user.address.@zip", "user.address.city");
+        xml("namespace prefixes are dropped",
+                "<s:Envelope xmlns:s=\"urn:s\"><s:Body><m:op xmlns:m=\"urn:m\"><m:arg>1</m:arg></m:op></s:Body></s:Envelope>",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "Envelope.Body.op.arg");
+        xml("empty element is a leaf", "<a><b/><c></c></a>", DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "a.b", "a.c");
+        xml("non-ASCII names", "<?xml version=\"1.0\" encoding=\"UTF-8\"?><người tuổi=\"3\"><tên>a</tên></người>",
+                DEPTH, NAMES, StructuredBodyWalker.Result.OK,
+                "người.@tuổi", "người.tên");
+
+        xml("unclosed element", "<a><b>1</b>", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED,
+                "a.b");
+        xml("mismatched tags", "<a><b>1</c></a>", DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        xml("external entity (XXE)",
+                "<?xml version=\"1.0\"?><!DOCTYPE foo [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]><foo>&xxe;</foo>",
+                DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+        xml("internal entity expansion",
+                "<?xml version=\"1.0\"?><!DOCTYPE foo [<!ENTITY a \"aaaa\"><!ENTITY b \"&a;&a;&a;&a;\">]><foo>&b;</foo>",
+                DEPTH, NAMES, StructuredBodyWalker.Result.MALFORMED);
+
+        xml("depth over limit", "<a><b><c>1</c></b></a>", 2, NAMES, StructuredBodyWalker.Result.TOO_DEEP);
+        xml("names over limit", "<a x=\"1\" y=\"2\"><b>1</b></a>", DEPTH, 2, StructuredBodyWalker.Result.TRUNCATED,
+                "a.@x", "a.@y");
+    }
+
+    private void json(String name, String body, int maxDepth, int maxNames, StructuredBodyWalker.Result expected,
+                      String... expectedNames) {
+        Set<String> out = new LinkedHashSet<>();
+        StructuredBodyWalker.Result result = StructuredBodyWalker.walkJson(body.getBytes(StandardCharsets.UTF_8),
+                maxDepth, maxNames, out);
+        verify("json: " + name, result, out, expected, expectedNames);
+    }
+
+    private void xml(String name, String body, int maxDepth, int maxNames, StructuredBodyWalker.Result expected,
+                     String... expectedNames) {
+        Set<String> out = new LinkedHashSet<>();
+        StructuredBodyWalker.Result result = StructuredBodyWalker.walkXml(body.getBytes(StandardCharsets.UTF_8),
+                maxDepth, maxNames, out);
+        verify("xml: " + name, result, out, expected, expectedNames);
+    }
+
+    /**
+     * Với kết quả OK/TRUNCATED, tập đường dẫn phải khớp chính xác; với TOO_DEEP/MALFORMED chỉ kiểm tra kết quả và
+     * các đường dẫn được liệt kê (nếu có), vì phần đã ghi nhận trước khi dừng không có ý nghĩa.
+     */
+    private void verify(String name, StructuredBodyWalker.Result result, Set<String> out,
+                        StructuredBodyWalker.Result expected, String[] expectedNames) {
+        Set<String> expectedSet = new TreeSet<>(Arrays.asList(expectedNames));
+        boolean exact = expected == StructuredBodyWalker.Result.OK || expected == StructuredBodyWalker.Result.TRUNCATED;
+        boolean namesMatch = exact ? expectedSet.equals(new TreeSet<>(out)) : out.containsAll(expectedSet);
+        if (result == expected && namesMatch) {
+            passed++;
+            return;
+        }
+        failed++;
+        System.out.println("FAIL " + name + ": expected " + expected + " " + expectedSet
+                + ", got " + result + " " + new TreeSet<>(out));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh cập nhật trạng thái một ô từ CSDL ({@link ApiTableModel#setStatus} với {@link ApiTableModel.EditSource#SYNC})
+ * với cách cũ: {@code DefaultTableModel} có {@code setValueAt} đọc stack trace ở mỗi lần gọi để đoán lời gọi
+ * đến từ đâu.
+ * <p>
+ * Model không gắn JTable nên không có listener; phép đo chỉ gồm chi phí của chính model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TableModelBenchmark {
+    @Param({"20000"})
+    public int rows;
+
+    private ApiTableModel model;
+    private StackWalkingTableModel legacyModel;
+    private int next;
+    private boolean value;
+
+    @Setup
+    public void setUp() {
+        List<Object[]> data = new ArrayList<>(rows);
+        Object[][] legacyData = new Object[rows][];
+        for (int id = rows; id > 0; id--) {
+            Object[] row = {"GET", BenchmarkFixtures.HOST, "/api/items/" + id, "id,page", false, false, false, false, id};
+            data.add(row);
+            legacyData[rows - id] = row.clone();
+        }
+        model = new ApiTableModel();
+        model.setRows(data);
+        legacyModel = new StackWalkingTableModel(legacyData);
+    }
+
+    private int nextRow() {
+        next = next + 1 == rows ? 0 : next + 1;
+        if (next == 0) {
+            value = !value;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public int syncStatusUpdate() {
+        int row = nextRow();
+        model.setStatus(row, ApiTableModel.COL_REJECTED, value, ApiTableModel.EditSource.SYNC);
+        return model.statusAt(row);
+    }
+
+    @Benchmark
+    public Object stackWalkStatusUpdate() {
+        int row = nextRow();
+        legacyModel.setValueAt(value, row, ApiTableModel.COL_REJECTED);
+        return legacyModel.getValueAt(row, ApiTableModel.COL_REJECTED);
+    }
+
+    /**
+     * Tái hiện model cũ: mỗi lần {@code setValueAt} đều dựng stack trace để xem có phải đang đồng bộ từ CSDL hay không.
+     */
+    static final class StackWalkingTableModel extends DefaultTableModel {
+        private static final Object[] COLUMNS = {"Method", "Host", "Path", "Unscanned Params", "Scanned", "Rejected", "Bypass", "Repeater", "id"};
+
+        StackWalkingTableModel(Object[][] data) {
+            super(data, COLUMNS);
+        }
+
+        @Override
+        public void setValueAt(Object aValue, int row, int column) {
+            boolean fromSync = Thread.currentThread().getStackTrace()[2].getMethodName().equals("updateOrInsertTableRow");
+            super.setValueAt(aValue, row, column);
+            if (!fromSync && column == ApiTableModel.COL_REJECTED && Boolean.TRUE.equals(aValue)) {
+                super.setValueAt(false, row, ApiTableModel.COL_BYPASS);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example;
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * File traffic cho harness tải: mỗi dòng là một cặp request/response, các cột cách nhau bởi tab:
+ * <pre>
+ * TOOL  STATUS  METHOD  URL  CONTENT_TYPE  BODY
+ * PROXY 200     POST    https://api.example.com/api/v1/users?page=2  JSON  {"name":"a"}
+ * </pre>
+ * {@code TOOL} là tên {@link ToolType}, {@code CONTENT_TYPE} là tên {@link ContentType}; trong {@code BODY} các ký tự
+ * {@code \}, tab, xuống dòng được viết thành {@code \\}, {@code \t}, {@code \n}, {@code \r}. Dòng trống và dòng bắt
+ * đầu bằng {@code #} được bỏ qua.
+ * <p>
+ * Tên tham số của request giả được tính sẵn khi đọc file (query string, body form, tên khóa lá của JSON/XML),
+ * gần với kết quả parser của Burp, để thời gian đo khi phát lại chỉ gồm chi phí của extension.
+ */
+final class TrafficFile {
+    /**
+     * Một cặp request/response trong file.
+     */
+    static final class Entry {
+        final ToolType tool;
+        final int status;
+        final String method;
+        final String url;
+        final ContentType contentType;
+        final String body;
+
+        Entry(ToolType tool, int status, String method, String url, ContentType contentType, String body) {
+            this.tool = tool;
+            this.status = status;
+            this.method = method;
+            this.url = url;
+            this.contentType = contentType;
+            this.body = body == null ? "" : body;
+        }
+    }
+
+    private static final String[] HOSTS = {"api.example.com", "shop.example.com", "admin.example.com"};
+    private static final String OUT_OF_SCOPE_HOST = "cdn.thirdparty.net";
+    private static final String[] STATIC_SUFFIXES = {".js", ".css", ".png", ".woff2", ".svg"};
+
+    private TrafficFile() {
+    }
+
+    static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", 6);
+                if (columns.length < 5) {
+                    throw new IOException("Line " + lineNumber + ": expected at least 5 tab-separated columns");
+                }
+                try {
+                    entries.add(new Entry(ToolType.valueOf(columns[0].trim().toUpperCase()), Integer.parseInt(columns[1].trim()),
+                            columns[2].trim(), columns[3].trim(), ContentType.valueOf(columns[4].trim().toUpperCase()),
+                            columns.length > 5 ? unescape(columns[5]) : ""));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return entries;
+    }
+
+    static void write(Path file, List<Entry> entries) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# TOOL\tSTATUS\tMETHOD\tURL\tCONTENT_TYPE\tBODY");
+            writer.newLine();
+            for (Entry entry : entries) {
+                writer.write(entry.tool.name() + '\t' + entry.status + '\t' + entry.method + '\t' + entry.url + '\t'
+                        + entry.contentType.name() + '\t' + escape(entry.body));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Sinh traffic giống một phiên kiểm thử: phần lớn là Proxy tới {@code endpoints} API REST, xen lẫn request
+     * Scanner lặp lại tham số của API, Repeater, tài nguyên tĩnh, host ngoài scope và response 404.
+     */
+    static List<Entry> generate(long seed, int count, int endpoints) {
+        Random random = new Random(seed);
+        String[] paths = BenchmarkFixtures.restPaths(random, endpoints);
+        List<Set<String>> params = new ArrayList<>(endpoints);
+        String[] hosts = new String[endpoints];
+        String[] methods = new String[endpoints];
+        ContentType[] bodyTypes = new ContentType[endpoints];
+        for (int i = 0; i < endpoints; i++) {
+            params.add(BenchmarkFixtures.paramSets(random, 1, 1 + random.nextInt(6), 200).get(0));
+            hosts[i] = HOSTS[random.nextInt(HOSTS.length)];
+            boolean post = random.nextInt(10) < 4;
+            methods[i] = post ? "POST" : "GET";
+            bodyTypes[i] = !post ? ContentType.NONE : random.nextInt(10) < 7 ? ContentType.JSON : ContentType.URL_ENCODED;
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        long extra = 0;
+        for (int n = 0; n < count; n++) {
+            int roll = random.nextInt(100);
+            int i = random.nextInt(endpoints);
+            if (roll < 5) {
+                entries.add(new Entry(ToolType.PROXY, 200, "GET", "https://" + hosts[i] + "/static/bundle." + n
+                        + STATIC_SUFFIXES[random.nextInt(STATIC_SUFFIXES.length)], ContentType.NONE, ""));
+                continue;
+            }
+            if (roll < 10) {
+                entries.add(new Entry(ToolType.PROXY, 200, "GET", "https://" + OUT_OF_SCOPE_HOST + paths[i] + "?v=" + n,
+                        ContentType.NONE, ""));
+                continue;
+            }
+            ToolType tool = roll < 25 ? ToolType.SCANNER : roll < 30 ? ToolType.REPEATER : ToolType.PROXY;
+            int status = roll >= 97 ? 404 : 200;
+            Set<String> names = new LinkedHashSet<>(params.get(i));
+            if (tool == ToolType.PROXY && random.nextInt(10) == 0) {
+                // Thỉnh thoảng API xuất hiện thêm tham số mới, buộc ghi xuống CSDL.
+                names.add("extra" + extra++);
+            }
+            entries.add(request(tool, status, methods[i], hosts[i], paths[i], bodyTypes[i], names, random));
+        }
+        return entries;
+    }
+
+    private static Entry request(ToolType tool, int status, String method, String host, String path, ContentType bodyType,
+                                 Set<String> names, Random random) {
+        StringBuilder query = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        int n = 0;
+        for (String name : names) {
+            String value = Integer.toString(random.nextInt(100_000));
+            if (bodyType == ContentType.NONE || (bodyType == ContentType.URL_ENCODED && n++ % 3 == 0)) {
+                query.append(query.length() == 0 ? '?' : '&').append(name).append('=').append(value);
+            } else if (bodyType == ContentType.JSON) {
+                body.append(body.length() == 0 ? "{" : ",").append('"').append(name).append("\":\"").append(value).append('"');
+            } else {
+                body.append(body.length() == 0 ? "" : "&").append(name).append('=').append(value);
+            }
+        }
+        if (bodyType == ContentType.JSON) {
+            body.append(body.length() == 0 ? "{" : ",").append("\"meta\":{\"client\":\"web\",\"tags\":[\"a\",\"b\"]}}");
+        }
+        return new Entry(tool, status, method, "https://" + host + path + query, bodyType, body.toString());
+    }
+
+    /**
+     * Dựng request giả cho một mục, với các tham số đã được tính sẵn.
+     */
+    static HttpRequest toRequest(Entry entry) {
+        int schemeEnd = entry.url.indexOf("://");
+        int hostStart = schemeEnd < 0 ? 0 : schemeEnd + 3;
+        int pathStart = entry.url.indexOf('/', hostStart);
+        String host = pathStart < 0 ? entry.url.substring(hostStart) : entry.url.substring(hostStart, pathStart);
+        int port = host.indexOf(':');
+        if (port >= 0) {
+            host = host.substring(0, port);
+        }
+        String pathWithQuery = pathStart < 0 ? "/" : entry.url.substring(pathStart);
+        int query = pathWithQuery.indexOf('?');
+
+        List<ParsedHttpParameter> urlParams = query < 0 ? Collections.emptyList()
+                : BenchmarkFixtures.params(HttpParameterType.URL, formNames(pathWithQuery.substring(query + 1)));
+        byte[] body = entry.body.getBytes(StandardCharsets.UTF_8);
+        List<ParsedHttpParameter> bodyParams;
+        switch (entry.contentType) {
+            case URL_ENCODED:
+                bodyParams = BenchmarkFixtures.params(HttpParameterType.BODY, formNames(entry.body));
+                break;
+            case JSON:
+                bodyParams = BenchmarkFixtures.params(HttpParameterType.JSON, leafNames(body, true));
+                break;
+            case XML:
+                bodyParams = BenchmarkFixtures.params(HttpParameterType.XML, leafNames(body, false));
+                break;
+            default:
+                bodyParams = Collections.emptyList();
+                break;
+        }
+        return BenchmarkFixtures.request(entry.method, host, pathWithQuery, entry.contentType, body, urlParams, bodyParams);
+    }
+
+    private static String[] formNames(String form) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            if (!name.isEmpty()) {
+                names.add(URLDecoder.decode(name, StandardCharsets.UTF_8));
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * Tên khóa lá của body JSON/XML: phần cuối của đường dẫn do {@link StructuredBodyWalker} trả về.
+     */
+    private static String[] leafNames(byte[] body, boolean json) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (json) {
+            StructuredBodyWalker.walkJson(body, 64, 10_000, paths);
+        } else {
+            StructuredBodyWalker.walkXml(body, 64, 10_000, paths);
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String path : paths) {
+            String name = path.substring(path.lastIndexOf('.') + 1).replace(StructuredBodyWalker.ARRAY_MARKER, "");
+            if (name.startsWith("@")) {
+                name = name.substring(1);
+            }
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                default:
+                    sb.append(next);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+}
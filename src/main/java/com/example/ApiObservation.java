@@ -0,0 +1,82 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Một sự kiện quan sát API được HttpHandler ghi nhận và đẩy vào {@link IngestionPipeline}.
+ * <p>
+ * Đối tượng này bất biến để có thể chuyển an toàn từ luồng proxy của Burp sang luồng ghi CSDL.
+ */
+final class ApiObservation {
+    /**
+     * Loại thao tác cần áp dụng vào CSDL cho sự kiện này.
+     */
+    enum Kind {
+        /** Request thông thường (Proxy, Repeater...) có tham số -> ghi nhận tham số mới. */
+        OBSERVED,
+        /** Request từ Scanner -> đánh dấu các tham số đã được quét. */
+        SCANNED,
+        /** Request từ Repeater -> đánh dấu cờ is_from_repeater. */
+        REPEATER,
+        /** Request không có tham số -> tự động bypass. */
+        AUTO_BYPASS
+    }
+
+    private final Kind kind;
+    private final String method;
+    private final String host;
+    private final String path;
+    private final Set<String> params;
+
+    private ApiObservation(Kind kind, String method, String host, String path, Set<String> params) {
+        this.kind = kind;
+        this.method = method;
+        this.host = host;
+        this.path = path;
+        this.params = params == null ? Collections.emptySet() : Collections.unmodifiableSet(params);
+    }
+
+    static ApiObservation observed(String method, String host, String path, Set<String> params) {
+        return new ApiObservation(Kind.OBSERVED, method, host, path, params);
+    }
+
+    static ApiObservation scanned(String method, String host, String path, Set<String> params) {
+        return new ApiObservation(Kind.SCANNED, method, host, path, params);
+    }
+
+    static ApiObservation repeater(String method, String host, String path) {
+        return new ApiObservation(Kind.REPEATER, method, host, path, null);
+    }
+
+    static ApiObservation autoBypass(String method, String host, String path) {
+        return new ApiObservation(Kind.AUTO_BYPASS, method, host, path, null);
+    }
+
+    /**
+     * Cùng sự kiện nhưng cho một path khác (ví dụ path đã được thay bằng template học được).
+     */
+    ApiObservation withPath(String newPath) {
+        return new ApiObservation(kind, method, host, newPath, params);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    String method() {
+        return method;
+    }
+
+    String host() {
+        return host;
+    }
+
+    String path() {
+        return path;
+    }
+
+    Set<String> params() {
+        return params;
+    }
+}
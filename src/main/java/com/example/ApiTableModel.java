@@ -0,0 +1,446 @@
+package com.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TableModel của bảng API, lưu dữ liệu theo cột thay vì mỗi dòng một {@code Object[]}.
+ * <p>
+ * Mỗi API chỉ tốn một phần tử trong các mảng song song: id kiểu int, các cờ trạng thái gói trong một byte
+ * (dùng chung các bit với {@link EndpointIndex}), method/host được intern nên hàng nghìn API cùng host
+ * chỉ giữ một chuỗi. Một bảng băm int -> int (không boxing) cho phép tìm dòng theo id trong O(1).
+ * <p>
+ * Dữ liệu được lưu theo thứ tự id tăng dần và hiển thị đảo ngược (API mới nhất ở trên cùng), nhờ vậy
+ * chèn API mới chỉ là thêm vào cuối mảng, không làm dịch chuyển vị trí lưu trữ của các API khác.
+ * Mọi phương thức phải được gọi trên EDT.
+ * <p>
+ * Model phân biệt rõ hai nguồn thay đổi: {@link #setValueAt} chỉ được JTable gọi khi người dùng sửa một ô
+ * ({@link EditSource#USER}) và được báo cho {@link StatusEditListener}; đồng bộ từ CSDL đi qua
+ * {@link #setRows}/{@link #applyRows} ({@link EditSource#SYNC}) và không bao giờ kích hoạt ghi ngược.
+ */
+class ApiTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nguồn của một thay đổi trạng thái trên bảng.
+     */
+    enum EditSource {
+        /**
+         * Người dùng tick/bỏ tick một ô: cần ghi xuống chỉ mục và CSDL.
+         */
+        USER,
+        /**
+         * Đồng bộ từ CSDL: chỉ cập nhật hiển thị.
+         */
+        SYNC
+    }
+
+    /**
+     * Nhận các thay đổi trạng thái do người dùng thực hiện trên bảng.
+     */
+    interface StatusEditListener {
+        /**
+         * @param id    id của API trong CSDL.
+         * @param bit   Bit trạng thái ({@link EndpointIndex#REJECTED} hoặc {@link EndpointIndex#BYPASSED}).
+         * @param value Giá trị mới của bit.
+         */
+        void statusEdited(int id, String method, String host, String path, int bit, boolean value);
+    }
+
+    // Thứ tự cột: Method, Host, Path, Unscanned, Scanned, Rejected, Bypass, Repeater(ẩn), id(ẩn).
+    static final int COL_METHOD = 0;
+    static final int COL_HOST = 1;
+    static final int COL_PATH = 2;
+    static final int COL_UNSCANNED = 3;
+    static final int COL_SCANNED = 4;
+    static final int COL_REJECTED = 5;
+    static final int COL_BYPASS = 6;
+    static final int COL_REPEATER = 7;
+    static final int COL_ID = 8;
+
+    private static final String[] COLUMN_NAMES = {"Method", "Host", "Path", "Unscanned Params", "Scanned", "Rejected", "Bypass", "Repeater", "id"};
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private byte[] statusBits = new byte[INITIAL_CAPACITY];
+    private String[] methods = new String[INITIAL_CAPACITY];
+    private String[] hosts = new String[INITIAL_CAPACITY];
+    private String[] paths = new String[INITIAL_CAPACITY];
+    private String[] unscannedParams = new String[INITIAL_CAPACITY];
+    /**
+     * id trong CSDL -> vị trí lưu trữ (không phải chỉ số dòng hiển thị).
+     */
+    private final IntIntMap slotById = new IntIntMap();
+    /**
+     * Bể intern cho method và host, vốn lặp lại rất nhiều giữa các API.
+     */
+    private final Map<String, String> internPool = new HashMap<>();
+    private StatusEditListener statusEditListener;
+    /**
+     * Bộ đếm số dòng có từng bit trạng thái, được cập nhật mỗi khi bit của một dòng thay đổi
+     * nên việc hiển thị thống kê không phải duyệt lại cả bảng.
+     */
+    private int scannedCount;
+    private int rejectedCount;
+    private int bypassedCount;
+
+    void setStatusEditListener(StatusEditListener statusEditListener) {
+        this.statusEditListener = statusEditListener;
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    /**
+     * Định nghĩa kiểu dữ liệu cho các cột để JTable có thể render đúng.
+     */
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        if (columnIndex >= COL_SCANNED && columnIndex <= COL_REPEATER) return Boolean.class; // Các cột trạng thái
+        if (columnIndex == COL_ID) return Integer.class;
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int slot = slotOf(row);
+        return switch (column) {
+            case COL_METHOD -> methods[slot];
+            case COL_HOST -> hosts[slot];
+            case COL_PATH -> paths[slot];
+            case COL_UNSCANNED -> unscannedParams[slot];
+            case COL_SCANNED, COL_REJECTED, COL_BYPASS, COL_REPEATER -> (statusBits[slot] & statusBitForColumn(column)) != 0;
+            case COL_ID -> ids[slot];
+            default -> null;
+        };
+    }
+
+    /**
+     * Sửa đổi logic cho phép chỉnh sửa ô.
+     * - "Rejected": Chỉ có thể sửa nếu API chưa "Scanned" VÀ đã được gửi từ "Repeater".
+     * - "Bypass": Có thể sửa nếu API chưa "Scanned".
+     * - Các cột khác không thể sửa trực tiếp trên bảng.
+     */
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        int bits = statusBits[slotOf(row)];
+        // Nếu đã được quét, không cho phép chỉnh sửa bất kỳ trạng thái nào.
+        if ((bits & EndpointIndex.SCANNED) != 0) {
+            return false;
+        }
+        if (column == COL_REJECTED) {
+            return (bits & EndpointIndex.FROM_REPEATER) != 0;
+        }
+        return column == COL_BYPASS;
+    }
+
+    /**
+     * Được JTable gọi khi người dùng sửa một ô; không dùng để đồng bộ dữ liệu từ CSDL.
+     */
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column == COL_UNSCANNED) {
+            unscannedParams[slotOf(row)] = value == null ? "" : (String) value;
+            fireTableCellUpdated(row, column);
+            return;
+        }
+        setStatus(row, column, Boolean.TRUE.equals(value), EditSource.USER);
+    }
+
+    /**
+     * Đặt một cột trạng thái của dòng.
+     * <p>
+     * Rejected và Bypass loại trừ nhau: tick một ô sẽ bỏ tick ô còn lại. Với {@link EditSource#USER},
+     * mọi bit bị thay đổi được báo cho {@link StatusEditListener} (tick một ô báo cả ô bị bỏ tick,
+     * để CSDL không còn giữ trạng thái cũ).
+     */
+    void setStatus(int row, int column, boolean value, EditSource source) {
+        int bit = statusBitForColumn(column);
+        if (bit == 0) {
+            return;
+        }
+        int slot = slotOf(row);
+        int other = 0;
+        if (value && (bit == EndpointIndex.REJECTED || bit == EndpointIndex.BYPASSED)) {
+            other = bit == EndpointIndex.REJECTED ? EndpointIndex.BYPASSED : EndpointIndex.REJECTED;
+        }
+        int bits = value ? statusBits[slot] | bit : statusBits[slot] & ~bit;
+        setBits(slot, bits & ~other);
+        fireTableRowsUpdated(row, row);
+
+        if (source == EditSource.USER && statusEditListener != null) {
+            int id = ids[slot];
+            statusEditListener.statusEdited(id, methods[slot], hosts[slot], paths[slot], bit, value);
+            if (other != 0) {
+                statusEditListener.statusEdited(id, methods[slot], hosts[slot], paths[slot], other, false);
+            }
+        }
+    }
+
+    int idAt(int row) {
+        return ids[slotOf(row)];
+    }
+
+    String methodAt(int row) {
+        return methods[slotOf(row)];
+    }
+
+    String pathAt(int row) {
+        return paths[slotOf(row)];
+    }
+
+    /**
+     * @return Tổ hợp các bit trạng thái {@link EndpointIndex#SCANNED}, {@link EndpointIndex#REJECTED},
+     * {@link EndpointIndex#BYPASSED}, {@link EndpointIndex#FROM_REPEATER} của dòng.
+     */
+    int statusAt(int row) {
+        return statusBits[slotOf(row)];
+    }
+
+    /**
+     * Thay toàn bộ dữ liệu của bảng.
+     *
+     * @param rows Các dòng theo định dạng của {@link DatabaseManager#loadApiData()}.
+     */
+    void setRows(List<Object[]> rows) {
+        size = 0;
+        scannedCount = 0;
+        rejectedCount = 0;
+        bypassedCount = 0;
+        slotById.clear();
+        internPool.clear();
+        ensureCapacity(rows.size());
+        // loadApiData trả về theo id giảm dần; lưu trữ theo id tăng dần.
+        List<Object[]> ascending = new ArrayList<>(rows);
+        ascending.sort((a, b) -> Integer.compare((Integer) a[COL_ID], (Integer) b[COL_ID]));
+        for (Object[] row : ascending) {
+            append(row);
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Áp dụng các dòng thay đổi: dòng đã có được ghi đè tại chỗ, dòng mới được chèn lên đầu bảng.
+     * Chỉ những dòng bị ảnh hưởng mới phát sự kiện.
+     *
+     * @param rows Các dòng theo định dạng của {@link DatabaseManager#loadApiData()}.
+     */
+    void applyRows(Collection<Object[]> rows) {
+        List<Object[]> newRows = new ArrayList<>();
+        for (Object[] row : rows) {
+            int slot = slotById.get((Integer) row[COL_ID]);
+            if (slot < 0) {
+                newRows.add(row);
+                continue;
+            }
+            write(slot, row);
+            int modelRow = rowOf(slot);
+            fireTableRowsUpdated(modelRow, modelRow);
+        }
+        if (newRows.isEmpty()) {
+            return;
+        }
+        newRows.sort((a, b) -> Integer.compare((Integer) a[COL_ID], (Integer) b[COL_ID]));
+        if (size > 0 && (Integer) newRows.get(0)[COL_ID] < ids[size - 1]) {
+            // Hiếm gặp: id mới nhỏ hơn id lớn nhất hiện có -> dựng lại theo đúng thứ tự.
+            List<Object[]> all = new ArrayList<>(size + newRows.size());
+            for (int slot = 0; slot < size; slot++) {
+                all.add(toRow(slot));
+            }
+            all.addAll(newRows);
+            setRows(all);
+            return;
+        }
+        ensureCapacity(size + newRows.size());
+        for (Object[] row : newRows) {
+            append(row);
+        }
+        // Các dòng mới nằm ở cuối mảng, tức là ở đầu bảng hiển thị.
+        fireTableRowsInserted(0, newRows.size() - 1);
+    }
+
+    int scannedCount() {
+        return scannedCount;
+    }
+
+    int rejectedCount() {
+        return rejectedCount;
+    }
+
+    int bypassedCount() {
+        return bypassedCount;
+    }
+
+    /**
+     * Ánh xạ cột trạng thái sang bit trạng thái trong {@link EndpointIndex}.
+     */
+    static int statusBitForColumn(int column) {
+        return switch (column) {
+            case COL_SCANNED -> EndpointIndex.SCANNED;
+            case COL_REJECTED -> EndpointIndex.REJECTED;
+            case COL_BYPASS -> EndpointIndex.BYPASSED;
+            case COL_REPEATER -> EndpointIndex.FROM_REPEATER;
+            default -> 0;
+        };
+    }
+
+    private int slotOf(int row) {
+        return size - 1 - row;
+    }
+
+    private int rowOf(int slot) {
+        return size - 1 - slot;
+    }
+
+    private void append(Object[] row) {
+        int slot = size++;
+        // Vị trí có thể còn bit của dữ liệu cũ; coi như dòng mới chưa có trạng thái nào trước khi đếm.
+        statusBits[slot] = 0;
+        ids[slot] = (Integer) row[COL_ID];
+        methods[slot] = intern((String) row[COL_METHOD]);
+        hosts[slot] = intern((String) row[COL_HOST]);
+        paths[slot] = (String) row[COL_PATH];
+        write(slot, row);
+        slotById.put(ids[slot], slot);
+    }
+
+    private void write(int slot, Object[] row) {
+        String unscanned = (String) row[COL_UNSCANNED];
+        unscannedParams[slot] = unscanned == null || unscanned.isEmpty() ? "" : unscanned;
+        int bits = 0;
+        for (int column = COL_SCANNED; column <= COL_REPEATER; column++) {
+            if (Boolean.TRUE.equals(row[column])) {
+                bits |= statusBitForColumn(column);
+            }
+        }
+        setBits(slot, bits);
+    }
+
+    /**
+     * Ghi các bit trạng thái của một vị trí và điều chỉnh bộ đếm theo các bit đã thay đổi.
+     */
+    private void setBits(int slot, int bits) {
+        int changed = statusBits[slot] ^ bits;
+        if ((changed & EndpointIndex.SCANNED) != 0) {
+            scannedCount += (bits & EndpointIndex.SCANNED) != 0 ? 1 : -1;
+        }
+        if ((changed & EndpointIndex.REJECTED) != 0) {
+            rejectedCount += (bits & EndpointIndex.REJECTED) != 0 ? 1 : -1;
+        }
+        if ((changed & EndpointIndex.BYPASSED) != 0) {
+            bypassedCount += (bits & EndpointIndex.BYPASSED) != 0 ? 1 : -1;
+        }
+        statusBits[slot] = (byte) bits;
+    }
+
+    private Object[] toRow(int slot) {
+        Object[] row = new Object[COLUMN_NAMES.length];
+        for (int column = 0; column < row.length; column++) {
+            row[column] = getValueAt(rowOf(slot), column);
+        }
+        return row;
+    }
+
+    private String intern(String value) {
+        return value == null ? null : internPool.computeIfAbsent(value, v -> v);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        statusBits = Arrays.copyOf(statusBits, newCapacity);
+        methods = Arrays.copyOf(methods, newCapacity);
+        hosts = Arrays.copyOf(hosts, newCapacity);
+        paths = Arrays.copyOf(paths, newCapacity);
+        unscannedParams = Arrays.copyOf(unscannedParams, newCapacity);
+    }
+
+    /**
+     * Bảng băm địa chỉ mở từ int sang int (không âm), tránh boxing của {@code HashMap<Integer, Integer>}.
+     */
+    private static final class IntIntMap {
+        private static final int FREE = Integer.MIN_VALUE;
+        private int[] keys = newKeys(64);
+        private int[] values = new int[64];
+        private int count;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                int k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(int key, int value) {
+            if ((count + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != FREE && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == FREE) {
+                count++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void clear() {
+            Arrays.fill(keys, FREE);
+            count = 0;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new int[capacity];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, FREE);
+            return keys;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
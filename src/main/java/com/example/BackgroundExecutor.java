@@ -0,0 +1,136 @@
+package com.example;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor dùng chung cho các việc nền của extension (ghi trạng thái người dùng tick, chuẩn hóa path và
+ * auto-bypass khi Apply), thay cho việc tạo {@code new Thread} cho mỗi việc.
+ * <p>
+ * Trên Java 21+ mỗi việc chạy trên một virtual thread; trên Java 17 là một pool platform thread daemon có giới hạn
+ * {@value #FALLBACK_THREADS} luồng. Project được biên dịch với {@code release 17} nên API virtual thread được gọi
+ * qua reflection. Các việc này đều tranh cùng khóa của {@link DatabaseManager}, nên số luồng không cần lớn.
+ */
+final class BackgroundExecutor {
+    static final int FALLBACK_THREADS = 4;
+    private static final String THREAD_NAME_PREFIX = "RecheckScan-background-";
+
+    private BackgroundExecutor() {
+    }
+
+    /**
+     * Tạo executor: virtual thread nếu JVM hỗ trợ, ngược lại pool có giới hạn.
+     */
+    static ExecutorService create() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(FALLBACK_THREADS, FALLBACK_THREADS, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Không giữ luồng khi không có việc: phần lớn thời gian executor này nằm không.
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Tương đương {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory())};
+     * trả về null nếu JVM chưa có virtual thread.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * true nếu executor chạy việc trên virtual thread.
+     */
+    static boolean isVirtual(ExecutorService executor) {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * Một hàng đợi tuần tự chạy trên {@code executor}: các việc được chạy lần lượt theo đúng thứ tự gửi,
+     * không việc nào chồng lên việc khác, nhưng không giữ một luồng riêng khi rảnh.
+     * <p>
+     * Các việc đã gửi được chạy hết trong cùng một lần {@code execute} xuống executor, nên sau khi executor bị
+     * {@code shutdown()}, {@code awaitTermination} vẫn chờ được các việc còn trong hàng đợi.
+     */
+    static Executor serial(Executor executor) {
+        return new SerialExecutor(executor);
+    }
+
+    private static final class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        private SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (tasks) {
+                tasks.add(task);
+                if (running) {
+                    return;
+                }
+                running = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                synchronized (tasks) {
+                    tasks.clear();
+                    running = false;
+                }
+                throw e;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (tasks) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        running = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Một việc lỗi không được chặn các việc phía sau; lỗi đã được DatabaseManager ghi log.
+                    Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+                    if (handler != null) {
+                        handler.uncaughtException(Thread.currentThread(), e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -5,8 +5,8 @@ import burp.api.montoya.MontoyaApi;
 import java.io.File;
 import java.sql.*;
 import java.util.*;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
 
 /**
  * Quản lý tất cả các hoạt động liên quan đến cơ sở dữ liệu SQLite của extension.
@@ -21,13 +21,91 @@ public class DatabaseManager {
      */
     private final MontoyaApi api;
     /**
-     * Đối tượng kết nối đến cơ sở dữ liệu SQLite. Được quản lý trong suốt vòng đời của extension.
+     * Kết nối ghi duy nhất đến cơ sở dữ liệu SQLite. Mọi thao tác trên kết nối này đều giữ khóa
+     * (monitor) của DatabaseManager, để các transaction của luồng ghi không bị xen lẫn.
      */
-    private Connection connection;
+    private Connection writeConnection;
+    /**
+     * Các câu lệnh đã biên dịch của kết nối ghi, được tạo lại mỗi lần {@link #initialize} và đóng trong {@link #close()}.
+     */
+    private StatementCache writeStatements;
+    /**
+     * Các kết nối chỉ-đọc cho giao diện và luồng proxy, để việc đọc không phải xếp hàng sau luồng ghi.
+     */
+    private volatile ReaderPool readerPool;
+    /**
+     * Số kết nối chỉ-đọc được mở cùng kết nối ghi.
+     */
+    private static final int READER_POOL_SIZE = 3;
+    /**
+     * Thời gian chờ tối đa để mượn một kết nối đọc trước khi dùng tạm kết nối ghi.
+     */
+    private static final long READER_BORROW_TIMEOUT_MILLIS = 500;
+    /**
+     * Các cột của một dòng trên bảng giao diện. Danh sách tham số chưa quét được ghép ngay trong SQL.
+     */
+    private static final String API_ROW_SELECT = """
+            SELECT id, method, host, path, is_scanned, is_rejected, is_bypassed, is_from_repeater,
+                   (SELECT group_concat(n.name, ', ' ORDER BY n.name) FROM api_param p JOIN param_name n ON n.id = p.name_id
+                    WHERE p.api_id = api_log.id AND p.is_scanned = 0) AS unscanned_params
+            FROM api_log
+            """;
+    /**
+     * Các cột để nạp chỉ mục trong bộ nhớ: mỗi tham số của một API là một dòng (API không có tham số vẫn có một dòng).
+     */
+    private static final String ENDPOINT_INDEX_SELECT = """
+            SELECT a.id, a.method, a.host, a.path, a.is_scanned, a.is_rejected, a.is_bypassed, a.is_from_repeater,
+                   p.name_id, p.is_scanned AS param_scanned
+            FROM api_log a LEFT JOIN api_param p ON p.api_id = a.id
+            """;
+
+    /**
+     * Nhận các dòng đã thay đổi sau mỗi lần ghi một đợt sự kiện.
+     */
+    @FunctionalInterface
+    interface ChangeListener {
+        /**
+         * Được gọi trên luồng ghi, ngay sau khi đợt sự kiện đã được commit.
+         *
+         * @param rows Trạng thái mới của các API bị thay đổi, cùng định dạng với {@link #loadApiData()}.
+         */
+        void apiRowsChanged(List<Object[]> rows);
+    }
+
+    private volatile ChangeListener changeListener;
+    /**
+     * Nơi ghi độ trễ của các thao tác CSDL (công đoạn {@code db.*} trên tab Metrics).
+     */
+    private volatile Metrics metrics = new Metrics();
+    /**
+     * Số lần dùng lại / phải biên dịch câu lệnh trong các {@link StatementCache}, cộng dồn qua mọi kết nối
+     * và mọi lần mở lại CSDL.
+     */
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    /**
+     * Từ điển tên tham số của file CSDL đang mở, được nạp lại mỗi lần {@link #initialize}.
+     */
+    private volatile ParamDictionary paramDictionary = new ParamDictionary();
+    /**
+     * Số id đầu tiên của {@link #paramDictionary} đã có trong bảng `param_name`; các id từ đây trở đi
+     * được ghi xuống trước khi dùng trong `api_param`. Chỉ truy cập khi giữ khóa của DatabaseManager.
+     */
+    private int persistedParamNames;
     /**
      * Đường dẫn đến tệp cơ sở dữ liệu SQLite trên đĩa.
      */
     private String dbPath;
+    /**
+     * Phiên bản cấu trúc CSDL hiện tại, được lưu trong `PRAGMA user_version`.
+     * <ul>
+     *   <li>0/1: chỉ có bảng `api_log`, tham số lưu dạng chuỗi nối bằng '|'.</li>
+     *   <li>2: tham số được chuyển sang bảng con `api_param`.</li>
+     *   <li>3: `api_param` có thêm `first_seen`, `last_scanned` và index cho tham số chưa quét; bỏ các cột cũ.</li>
+     *   <li>4: tên tham số được lưu một lần trong `param_name`; `api_param` tham chiếu tới nó qua `name_id`.</li>
+     * </ul>
+     */
+    private static final int SCHEMA_VERSION = 4;
 
     /**
      * Hàm khởi tạo cho DatabaseManager.
@@ -39,11 +117,21 @@ public class DatabaseManager {
     }
 
     /**
-     * Khởi tạo kết nối đến cơ sở dữ liệu và đảm bảo bảng dữ liệu đã sẵn sàng.
+     * Khởi tạo kết nối đến cơ sở dữ liệu với bộ thông số {@link SqliteTuning#DEFAULT}.
      *
      * @param savedOutputPath Đường dẫn đến tệp CSDL do người dùng cấu hình. Nếu rỗng, một đường dẫn mặc định sẽ được sử dụng.
      */
     public void initialize(String savedOutputPath) {
+        initialize(savedOutputPath, SqliteTuning.DEFAULT);
+    }
+
+    /**
+     * Khởi tạo kết nối đến cơ sở dữ liệu và đảm bảo bảng dữ liệu đã sẵn sàng.
+     *
+     * @param savedOutputPath Đường dẫn đến tệp CSDL do người dùng cấu hình. Nếu rỗng, một đường dẫn mặc định sẽ được sử dụng.
+     * @param tuning          Các PRAGMA (journal, synchronous, mmap, cache...) áp dụng cho kết nối.
+     */
+    public synchronized void initialize(String savedOutputPath, SqliteTuning tuning) {
         this.dbPath = getDbPath(savedOutputPath);
         try {
             // Nạp driver JDBC cho SQLite.
@@ -57,11 +145,35 @@ public class DatabaseManager {
             }
             
             // Tạo kết nối đến tệp SQLite.
-            connection = DriverManager.getConnection("jdbc:sqlite:" + this.dbPath);
+            writeConnection = DriverManager.getConnection("jdbc:sqlite:" + this.dbPath);
+            writeStatements = new StatementCache(writeConnection, statementCacheHits, statementCacheMisses);
             api.logging().logToOutput("Successfully connected to SQLite database: " + this.dbPath);
-            
-            // Tạo bảng nếu nó chưa tồn tại.
+
+            String journalMode = tuning.apply(writeConnection);
+            if (!journalMode.equalsIgnoreCase(tuning.journalMode().name())) {
+                api.logging().logToError("SQLite refused journal_mode=" + tuning.journalMode() + ", using " + journalMode);
+            }
+            api.logging().logToOutput("SQLite tuning: " + tuning);
+
+            // Bật ràng buộc khóa ngoại để xóa một API sẽ xóa luôn các tham số của nó.
+            try (Statement stmt = writeConnection.createStatement()) {
+                stmt.execute("PRAGMA foreign_keys = ON");
+            }
+
+            // Tạo bảng nếu nó chưa tồn tại, rồi nâng cấp cấu trúc của các CSDL cũ.
             createTableIfNotExists();
+            migrateSchema();
+            // Index chỉ được tạo sau khi nâng cấp, vì chúng tham chiếu các cột của cấu trúc mới.
+            createIndexes();
+            pruneParamNames();
+            loadParamDictionary();
+
+            // Các kết nối đọc chỉ được mở sau khi bảng đã sẵn sàng.
+            try {
+                readerPool = new ReaderPool(this.dbPath, tuning, READER_POOL_SIZE, statementCacheHits, statementCacheMisses);
+            } catch (SQLException e) {
+                api.logging().logToError("Failed to open read-only connections, reads will use the writer connection: " + e.getMessage(), e);
+            }
         } catch (SQLException | ClassNotFoundException e) {
             api.logging().logToError("Failed to initialize SQLite database: " + e.getMessage(), e);
         }
@@ -88,7 +200,7 @@ public class DatabaseManager {
     }
 
     /**
-     * Tạo bảng `api_log` nếu nó chưa tồn tại.
+     * Tạo bảng `api_log`, `param_name` và `api_param` nếu chúng chưa tồn tại.
      * Đây là cấu trúc trung tâm để lưu trữ tất cả thông tin về các API.
      * Ràng buộc UNIQUE trên (host, path, method) là cốt lõi để phân biệt các API.
      *
@@ -101,8 +213,6 @@ public class DatabaseManager {
                 method TEXT NOT NULL,                      -- Phương thức HTTP (GET, POST, etc.)
                 host TEXT NOT NULL,                        -- Host của API (e.g., api.example.com)
                 path TEXT NOT NULL,                        -- Đường dẫn của API (e.g., /v1/users)
-                unscanned_params TEXT,                     -- Danh sách các tham số CHƯA được quét, cách nhau bởi dấu '|'.
-                scanned_params TEXT,                       -- Danh sách các tham số ĐÃ được quét, cách nhau bởi dấu '|'.
                 is_scanned BOOLEAN DEFAULT 0,              -- Trạng thái: đã quét hết các param (1) hay chưa (0).
                 is_rejected BOOLEAN DEFAULT 0,             -- Trạng thái: người dùng đã từ chối quét (1) hay chưa (0).
                 is_bypassed BOOLEAN DEFAULT 0,             -- Trạng thái: được tự động bỏ qua (1) hay chưa (0).
@@ -111,8 +221,278 @@ public class DatabaseManager {
                 UNIQUE(host, path, method)                 -- Ràng buộc duy nhất: không thể có hai dòng trùng cả host, path và method.
             );
             """;
-        try (Statement stmt = connection.createStatement()) {
+        try (Statement stmt = writeConnection.createStatement()) {
             stmt.execute(sql);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS param_name (
+                    id INTEGER PRIMARY KEY,                    -- Id của tên tham số, trùng với id trong ParamDictionary.
+                    name TEXT NOT NULL UNIQUE                  -- Tên tham số.
+                );
+                """);
+            createParamTable(stmt, "api_param");
+        }
+    }
+
+    /**
+     * Tạo bảng chứa tham số của các API.
+     * <p>
+     * Mỗi tham số của một API là một dòng riêng, nhờ đó việc thêm tham số mới hay đánh dấu
+     * một tham số đã quét chỉ là thao tác trên một dòng, không cần đọc-sửa-ghi cả danh sách.
+     *
+     * @param stmt      Statement dùng để thực thi.
+     * @param tableName Tên bảng (khác "api_param" khi đang dựng lại bảng trong lúc nâng cấp).
+     */
+    private static void createParamTable(Statement stmt, String tableName) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS %s (
+                api_id INTEGER NOT NULL REFERENCES api_log(id) ON DELETE CASCADE, -- API sở hữu tham số.
+                name_id INTEGER NOT NULL REFERENCES param_name(id), -- Tên tham số (xem bảng param_name).
+                is_scanned BOOLEAN NOT NULL DEFAULT 0,     -- Tham số đã được Scanner quét (1) hay chưa (0).
+                first_seen TIMESTAMP DEFAULT CURRENT_TIMESTAMP, -- Lần đầu tiên tham số được phát hiện.
+                last_scanned TIMESTAMP,                    -- Lần cuối Scanner quét trúng tham số này.
+                PRIMARY KEY (api_id, name_id)
+            ) WITHOUT ROWID;
+            """.formatted(tableName));
+    }
+
+    /**
+     * Tạo các index nếu chúng chưa tồn tại. Chạy sau {@link #migrateSchema()}: trên một CSDL cũ, {@code api_param}
+     * chỉ có cột {@code name_id} sau khi đã được nâng cấp.
+     *
+     * @throws SQLException Nếu có lỗi khi thực thi câu lệnh SQL.
+     */
+    private void createIndexes() throws SQLException {
+        try (Statement stmt = writeConnection.createStatement()) {
+            // Index một phần chỉ chứa các tham số chưa quét: phục vụ câu hỏi "API nào/tham số nào còn chưa quét".
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_api_param_unscanned ON api_param(api_id, name_id) WHERE is_scanned = 0");
+        }
+    }
+
+    /**
+     * Nâng cấp cấu trúc CSDL của các project cũ lên {@link #SCHEMA_VERSION}.
+     *
+     * @throws SQLException Nếu có lỗi khi thực thi câu lệnh SQL.
+     */
+    private void migrateSchema() throws SQLException {
+        int version;
+        try (Statement stmt = writeConnection.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= SCHEMA_VERSION) {
+            return;
+        }
+
+        boolean originalAutoCommit = writeConnection.getAutoCommit();
+        writeConnection.setAutoCommit(false);
+        boolean upgraded = false;
+        try (Statement stmt = writeConnection.createStatement()) {
+            // Bảng api_param dạng cũ (lưu tên tham số dạng chuỗi) -> đưa tên vào param_name và dựng lại với name_id.
+            if (columnExists("api_param", "name")) {
+                stmt.execute("""
+                        INSERT INTO param_name (id, name)
+                        SELECT row_number() OVER (ORDER BY name) - 1, name FROM (SELECT DISTINCT name FROM api_param)
+                        """);
+                String firstSeen = columnExists("api_param", "first_seen") ? "p.first_seen" : "CURRENT_TIMESTAMP";
+                String lastScanned = columnExists("api_param", "last_scanned") ? "p.last_scanned" : "NULL";
+                createParamTable(stmt, "api_param_new");
+                stmt.execute("INSERT INTO api_param_new (api_id, name_id, is_scanned, first_seen, last_scanned) "
+                        + "SELECT p.api_id, n.id, p.is_scanned, " + firstSeen + ", " + lastScanned
+                        + " FROM api_param p JOIN param_name n ON n.name = p.name");
+                stmt.execute("DROP TABLE api_param");
+                stmt.execute("ALTER TABLE api_param_new RENAME TO api_param");
+                upgraded = true;
+            }
+            // Các cột chuỗi nối bằng '|' cũ -> chuyển sang api_param rồi xóa cột.
+            if (columnExists("api_log", "unscanned_params")) {
+                loadParamDictionary();
+                migrateLegacyParamColumns();
+                stmt.execute("ALTER TABLE api_log DROP COLUMN unscanned_params");
+                stmt.execute("ALTER TABLE api_log DROP COLUMN scanned_params");
+                upgraded = true;
+            }
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+            writeConnection.commit();
+            if (upgraded) {
+                api.logging().logToOutput("Database schema upgraded from version " + version + " to " + SCHEMA_VERSION + ".");
+            }
+        } catch (SQLException e) {
+            writeConnection.rollback();
+            throw e;
+        } finally {
+            writeConnection.setAutoCommit(originalAutoCommit);
+        }
+    }
+
+    /**
+     * Kiểm tra một cột có tồn tại trong bảng hay không.
+     */
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (PreparedStatement stmt = writeConnection.prepareStatement("SELECT 1 FROM pragma_table_info(?) WHERE name = ?")) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Chuyển dữ liệu tham số từ các cột cũ `unscanned_params`/`scanned_params` (chuỗi nối bằng '|')
+     * sang bảng `api_param`. Được gọi bên trong transaction của {@link #migrateSchema()}.
+     *
+     * @throws SQLException Nếu có lỗi khi thực thi câu lệnh SQL.
+     */
+    private void migrateLegacyParamColumns() throws SQLException {
+        String selectSql = "SELECT id, unscanned_params, scanned_params FROM api_log WHERE unscanned_params IS NOT NULL OR scanned_params IS NOT NULL";
+        int migrated = 0;
+        List<int[]> rows = new ArrayList<>();
+        try (Statement selectStmt = writeConnection.createStatement();
+             ResultSet rs = selectStmt.executeQuery(selectSql)) {
+            while (rs.next()) {
+                int id = rs.getInt("id");
+                for (int nameId : paramDictionary.toIds(stringToSet(rs.getString("unscanned_params")))) {
+                    rows.add(new int[]{id, nameId, 0});
+                }
+                for (int nameId : paramDictionary.toIds(stringToSet(rs.getString("scanned_params")))) {
+                    rows.add(new int[]{id, nameId, 1});
+                }
+                migrated++;
+            }
+        }
+        // Tên mới phải có trong param_name trước khi được tham chiếu từ api_param.
+        persistParamNames();
+        try (PreparedStatement insertStmt = writeConnection.prepareStatement(
+                "INSERT INTO api_param (api_id, name_id, is_scanned) VALUES (?, ?, ?) ON CONFLICT(api_id, name_id) DO UPDATE SET is_scanned = max(is_scanned, excluded.is_scanned)")) {
+            for (int[] row : rows) {
+                insertStmt.setInt(1, row[0]);
+                insertStmt.setInt(2, row[1]);
+                insertStmt.setBoolean(3, row[2] != 0);
+                insertStmt.addBatch();
+            }
+            insertStmt.executeBatch();
+        }
+        if (migrated > 0) {
+            api.logging().logToOutput("Migrated parameters of " + migrated + " APIs to the api_param table.");
+        }
+    }
+
+    /**
+     * Xóa các tên tham số không còn API nào dùng (API đã bị xóa hoặc bị gộp, tên được ghi trong một đợt bị rollback),
+     * để từ điển nạp vào bộ nhớ chỉ chứa các tên đang được tham chiếu.
+     *
+     * @throws SQLException Nếu có lỗi khi ghi.
+     */
+    private void pruneParamNames() throws SQLException {
+        try (Statement stmt = writeConnection.createStatement()) {
+            int pruned = stmt.executeUpdate("DELETE FROM param_name WHERE id NOT IN (SELECT name_id FROM api_param)");
+            if (pruned > 0) {
+                api.logging().logToOutput("Removed " + pruned + " unused parameter names.");
+            }
+        }
+    }
+
+    /**
+     * Nạp bảng `param_name` vào một {@link ParamDictionary} mới.
+     *
+     * @throws SQLException Nếu có lỗi khi đọc bảng.
+     */
+    private void loadParamDictionary() throws SQLException {
+        ParamDictionary dictionary = new ParamDictionary();
+        try (Statement stmt = writeConnection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM param_name")) {
+            while (rs.next()) {
+                dictionary.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        paramDictionary = dictionary;
+        persistedParamNames = dictionary.size();
+    }
+
+    /**
+     * Từ điển tên tham số của file CSDL đang mở.
+     */
+    ParamDictionary paramDictionary() {
+        return paramDictionary;
+    }
+
+    /**
+     * Ghi xuống `param_name` các tên đã được cấp id trong bộ nhớ nhưng chưa có trong CSDL.
+     * Người gọi phải đang giữ khóa của DatabaseManager.
+     *
+     * @throws SQLException Nếu có lỗi khi ghi.
+     */
+    private void persistParamNames() throws SQLException {
+        ParamDictionary dictionary = paramDictionary;
+        int size = dictionary.size();
+        if (persistedParamNames >= size) {
+            return;
+        }
+        PreparedStatement stmt = writer().prepare("INSERT INTO param_name (id, name) VALUES (?, ?) ON CONFLICT DO NOTHING");
+        for (int id = persistedParamNames; id < size; id++) {
+            String name = dictionary.name(id);
+            if (name != null) {
+                stmt.setInt(1, id);
+                stmt.setString(2, name);
+                stmt.addBatch();
+            }
+        }
+        stmt.executeBatch();
+        persistedParamNames = size;
+    }
+
+    /**
+     * Tìm id của một API.
+     *
+     * @return id trong `api_log`, hoặc -1 nếu API chưa có.
+     * @throws SQLException Nếu có lỗi khi truy vấn.
+     */
+    private int findApiId(String method, String host, String path) throws SQLException {
+        PreparedStatement stmt = writer().prepare("SELECT id FROM api_log WHERE host = ? AND path = ? AND method = ?");
+        stmt.setString(1, host);
+        stmt.setString(2, path);
+        stmt.setString(3, method);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    /**
+     * Bộ đệm câu lệnh của kết nối ghi. Người gọi phải đang giữ khóa của DatabaseManager.
+     *
+     * @throws SQLException Nếu CSDL chưa được khởi tạo thành công.
+     */
+    private StatementCache writer() throws SQLException {
+        if (writeStatements == null) {
+            throw new SQLException("Database is not initialized");
+        }
+        return writeStatements;
+    }
+
+    /**
+     * Một truy vấn chỉ-đọc chạy trên một kết nối được mượn.
+     */
+    @FunctionalInterface
+    private interface ReadTask<T> {
+        T run(StatementCache statements) throws SQLException;
+    }
+
+    /**
+     * Chạy một truy vấn chỉ-đọc trên kết nối mượn từ {@link ReaderPool}.
+     * Nếu không có kết nối đọc (mở thất bại, đã đóng hoặc tất cả đang bận quá lâu),
+     * truy vấn sẽ chạy trên kết nối ghi như trước đây.
+     */
+    private <T> T withReader(ReadTask<T> task) throws SQLException {
+        ReaderPool pool = readerPool;
+        StatementCache reader = pool == null ? null : pool.borrow(READER_BORROW_TIMEOUT_MILLIS);
+        if (reader == null) {
+            synchronized (this) {
+                return task.run(writer());
+            }
+        }
+        try {
+            return task.run(reader);
+        } finally {
+            pool.release(reader);
         }
     }
 
@@ -123,99 +503,425 @@ public class DatabaseManager {
      * @return Một danh sách các mảng Object, mỗi mảng đại diện cho một dòng trong bảng UI.
      */
     public List<Object[]> loadApiData() {
+        long start = System.nanoTime();
         List<Object[]> rows = new ArrayList<>();
-        String sql = "SELECT id, method, host, path, unscanned_params, scanned_params, is_scanned, is_rejected, is_bypassed, is_from_repeater FROM api_log ORDER BY id DESC";
-        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String unscanned = rs.getString("unscanned_params");
-                
-                // Xây dựng chuỗi "unscanned_params" để hiển thị cho người dùng.
-                StringBuilder unscanned_params = new StringBuilder();
-                if (unscanned != null && !unscanned.isEmpty()) {
-                    unscanned_params.append(unscanned.replace("|", ", "));
+        String sql = API_ROW_SELECT + "ORDER BY id DESC";
+        try {
+            withReader(statements -> {
+                try (ResultSet rs = statements.prepare(sql).executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(apiRowFromResultSet(rs));
+                    }
                 }
-
-                rows.add(new Object[]{
-                        rs.getString("method"),
-                        rs.getString("host"),
-                        rs.getString("path"),
-                        unscanned_params.toString().trim(),
-                        rs.getBoolean("is_scanned"),
-                        rs.getBoolean("is_rejected"),
-                        rs.getBoolean("is_bypassed"),
-                        rs.getBoolean("is_from_repeater"),
-                        rs.getInt("id")
-                });
-            }
+                return null;
+            });
         } catch (SQLException e) {
             api.logging().logToError("Failed to load API data from database: " + e.getMessage(), e);
         }
+        metrics.stage("db.loadApiData").recordSince(start);
         return rows;
     }
 
+    /**
+     * Chuyển dòng hiện tại của kết quả truy vấn {@link #API_ROW_SELECT} thành một dòng của bảng giao diện:
+     * Method, Host, Path, Unscanned Params, Scanned, Rejected, Bypass, Repeater, id.
+     */
+    private static Object[] apiRowFromResultSet(ResultSet rs) throws SQLException {
+        String unscanned = rs.getString("unscanned_params");
+        return new Object[]{
+                rs.getString("method"),
+                rs.getString("host"),
+                rs.getString("path"),
+                unscanned == null ? "" : unscanned,
+                rs.getBoolean("is_scanned"),
+                rs.getBoolean("is_rejected"),
+                rs.getBoolean("is_bypassed"),
+                rs.getBoolean("is_from_repeater"),
+                rs.getInt("id")
+        };
+    }
+
+    /**
+     * Đăng ký nơi nhận các dòng thay đổi sau mỗi đợt ghi, thay cho việc tải lại toàn bộ bảng.
+     */
+    public void setChangeListener(ChangeListener listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * Đăng ký nơi ghi độ trễ của các thao tác CSDL.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        metrics.gauge("db.statementCache.hits", statementCacheHits::sum);
+        metrics.gauge("db.statementCache.misses", statementCacheMisses::sum);
+    }
+
+    /**
+     * Nạp toàn bộ API (tham số và các cờ trạng thái) vào chỉ mục trong bộ nhớ.
+     *
+     * @param index Chỉ mục cần được nạp dữ liệu.
+     */
+    public void loadEndpointIndex(EndpointIndex index) {
+        // LEFT JOIN và sắp xếp theo id để các tham số của cùng một API nằm liền nhau.
+        String sql = ENDPOINT_INDEX_SELECT + "ORDER BY a.id";
+        try {
+            withReader(statements -> {
+                try (ResultSet rs = statements.prepare(sql).executeQuery()) {
+                    return putEndpoints(rs, index);
+                }
+            });
+        } catch (SQLException e) {
+            api.logging().logToError("Failed to load endpoint index from database: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Nạp lại một API vào chỉ mục, thay cho trạng thái hiện có trong chỉ mục.
+     *
+     * @return 1 nếu API đã được nạp, 0 nếu API không có trong CSDL, -1 nếu không đọc được.
+     */
+    int loadEndpoint(EndpointIndex index, String method, String host, String path) {
+        String sql = ENDPOINT_INDEX_SELECT + "WHERE a.host = ? AND a.path = ? AND a.method = ?";
+        try {
+            return withReader(statements -> {
+                PreparedStatement stmt = statements.prepare(sql);
+                stmt.setString(1, host);
+                stmt.setString(2, path);
+                stmt.setString(3, method);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return putEndpoints(rs, index);
+                }
+            });
+        } catch (SQLException e) {
+            api.logging().logToError("Failed to reload endpoint " + method + " " + host + path + ": " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Đọc kết quả của {@link #ENDPOINT_INDEX_SELECT} (các dòng cùng API nằm liền nhau) vào chỉ mục.
+     *
+     * @return Số API đã nạp.
+     */
+    private static int putEndpoints(ResultSet rs, EndpointIndex index) throws SQLException {
+        int count = 0;
+        int currentId = -1;
+        String method = null, host = null, path = null;
+        int statusBits = 0;
+        IdBuffer unscanned = new IdBuffer();
+        IdBuffer scanned = new IdBuffer();
+        while (rs.next()) {
+            int id = rs.getInt("id");
+            if (id != currentId) {
+                if (currentId != -1) {
+                    index.put(method, host, path, unscanned.drain(), scanned.drain(), statusBits);
+                    count++;
+                }
+                currentId = id;
+                method = rs.getString("method");
+                host = rs.getString("host");
+                path = rs.getString("path");
+                statusBits = (rs.getBoolean("is_scanned") ? EndpointIndex.SCANNED : 0)
+                        | (rs.getBoolean("is_rejected") ? EndpointIndex.REJECTED : 0)
+                        | (rs.getBoolean("is_bypassed") ? EndpointIndex.BYPASSED : 0)
+                        | (rs.getBoolean("is_from_repeater") ? EndpointIndex.FROM_REPEATER : 0);
+            }
+            int nameId = rs.getInt("name_id");
+            if (!rs.wasNull()) {
+                (rs.getBoolean("param_scanned") ? scanned : unscanned).add(nameId);
+            }
+        }
+        if (currentId != -1) {
+            index.put(method, host, path, unscanned.drain(), scanned.drain(), statusBits);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Bộ đệm id dùng lại khi nạp chỉ mục, tránh tạo tập hợp tạm cho mỗi API.
+     */
+    private static final class IdBuffer {
+        private int[] ids = new int[16];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Trả về các id đã sắp xếp rồi làm rỗng bộ đệm.
+         */
+        int[] drain() {
+            if (size == 0) {
+                return ParamDictionary.EMPTY_IDS;
+            }
+            int[] result = Arrays.copyOf(ids, size);
+            Arrays.sort(result);
+            size = 0;
+            return result;
+        }
+    }
+
     /**
      * Chèn một API mới hoặc cập nhật các tham số của một API đã tồn tại.
      * Được gọi bởi các request thông thường (không phải từ Scanner).
-     * Nếu phát hiện tham số mới, chúng sẽ được thêm vào `unscanned_params` và reset `is_scanned` về false.
+     * Nếu phát hiện tham số mới, chúng sẽ được thêm vào `api_param` và reset `is_scanned` về false.
+     * <p>
+     * Tên tham số được đổi sang id qua {@link ParamDictionary}; việc so sánh tham số được thực hiện bằng upsert
+     * trong SQLite, không cần đọc dữ liệu cũ ra Java. Phương thức vẫn phải {@code synchronized}: nó chạy nhiều câu
+     * lệnh trên kết nối ghi dùng chung, nên không được xen vào transaction của luồng ghi, của việc chuẩn hóa path
+     * hay của auto-bypass, cũng như không được chạy song song với việc dùng chung bộ đệm câu lệnh.
      *
      * @param method        Phương thức HTTP của request.
      * @param host          Host của request.
      * @param path          Path của request.
      * @param requestParams Tập hợp các tham số từ request hiện tại.
+     * @return true nếu API mới được chèn hoặc có tham số mới, ngược lại false.
      */
-    public synchronized void insertOrUpdateApi(String method, String host, String path, Set<String> requestParams) {
-        String selectSql = "SELECT unscanned_params, scanned_params FROM api_log WHERE host = ? AND path = ? AND method = ?";
-        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
-            selectStmt.setString(1, host);
-            selectStmt.setString(2, path);
-            selectStmt.setString(3, method);
-            ResultSet rs = selectStmt.executeQuery();
-
-            if (rs.next()) { // API đã tồn tại -> Cập nhật
-                Set<String> unscannedSet = stringToSet(rs.getString("unscanned_params"));
-                Set<String> scannedSet = stringToSet(rs.getString("scanned_params"));
-                
-                // Gộp tất cả các param đã biết để so sánh.
-                Set<String> knownParams = new HashSet<>(unscannedSet);
-                knownParams.addAll(scannedSet);
-
-                // Tìm các param thực sự mới.
-                Set<String> newDiscoveredParams = new HashSet<>(requestParams);
-                newDiscoveredParams.removeAll(knownParams);
-
-                // Nếu có param mới, thêm vào danh sách unscanned và reset trạng thái is_scanned.
-                if (!newDiscoveredParams.isEmpty()) {
-                    unscannedSet.addAll(newDiscoveredParams);
-                    String updatedUnscannedParams = setToString(unscannedSet);
-                    String updateSql = "UPDATE api_log SET unscanned_params = ?, is_scanned = 0, is_bypassed = 0, last_seen = CURRENT_TIMESTAMP WHERE host = ? AND path = ? AND method = ?";
-                    try (PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
-                        updateStmt.setString(1, updatedUnscannedParams);
-                        updateStmt.setString(2, host);
-                        updateStmt.setString(3, path);
-                        updateStmt.setString(4, method);
-                        updateStmt.executeUpdate();
+    public synchronized boolean insertOrUpdateApi(String method, String host, String path, Set<String> requestParams) {
+        try {
+            return upsertApi(method, host, path, requestParams);
+        } catch (SQLException e) {
+            api.logging().logToError("Error during insert/update API: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Phần thân của {@link #insertOrUpdateApi}; lỗi được ném ra để đợt ghi chứa nó bị rollback.
+     * Người gọi phải đang giữ khóa của DatabaseManager.
+     */
+    private boolean upsertApi(String method, String host, String path, Set<String> requestParams) throws SQLException {
+        // Dùng NOT EXISTS thay vì ON CONFLICT để không tiêu tốn giá trị AUTOINCREMENT khi API đã tồn tại.
+        String insertApiSql = """
+            INSERT INTO api_log (method, host, path)
+            SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM api_log WHERE host = ? AND path = ? AND method = ?)
+            """;
+        // Chỉ những tham số chưa có trong api_param mới thực sự được chèn (và được đếm).
+        String insertParamSql = "INSERT INTO api_param (api_id, name_id) VALUES (?, ?) ON CONFLICT(api_id, name_id) DO NOTHING";
+        String resetStatusSql = "UPDATE api_log SET is_scanned = 0, is_bypassed = 0, last_seen = CURRENT_TIMESTAMP WHERE id = ?";
+        PreparedStatement insertApiStmt = writer().prepare(insertApiSql);
+        insertApiStmt.setString(1, method);
+        insertApiStmt.setString(2, host);
+        insertApiStmt.setString(3, path);
+        insertApiStmt.setString(4, host);
+        insertApiStmt.setString(5, path);
+        insertApiStmt.setString(6, method);
+        boolean inserted = insertApiStmt.executeUpdate() > 0;
+
+        int newParams = 0;
+        if (!requestParams.isEmpty()) {
+            int[] nameIds = paramDictionary.toIds(requestParams);
+            persistParamNames();
+            int apiId = findApiId(method, host, path);
+            PreparedStatement insertParamStmt = writer().prepare(insertParamSql);
+            for (int nameId : nameIds) {
+                insertParamStmt.setInt(1, apiId);
+                insertParamStmt.setInt(2, nameId);
+                insertParamStmt.addBatch();
+            }
+            newParams = sumUpdateCounts(insertParamStmt.executeBatch());
+
+            // Nếu API đã tồn tại và có param mới, reset trạng thái is_scanned/is_bypassed.
+            if (!inserted && newParams > 0) {
+                PreparedStatement resetStmt = writer().prepare(resetStatusSql);
+                resetStmt.setInt(1, apiId);
+                resetStmt.executeUpdate();
+            }
+        }
+        return inserted || newParams > 0;
+    }
+
+    /**
+     * Ghi một đợt sự kiện quan sát API trong một transaction duy nhất (group commit).
+     * <p>
+     * Các sự kiện cùng (host, path, method) được gộp lại trong bộ nhớ trước khi ghi: tham số từ
+     * nhiều request được hợp nhất, các cờ Repeater/bypass chỉ ghi một lần. Nhờ vậy một loạt
+     * response từ Scanner chỉ tốn một lần commit (một lần fsync) thay vì một lần cho mỗi request.
+     *
+     * @param batch Các sự kiện theo thứ tự nhận được.
+     * @return true nếu có sự thay đổi trong CSDL, ngược lại false.
+     * @throws BatchRolledBackException Nếu một thao tác trong đợt lỗi: cả đợt bị rollback, không thay đổi nào được lưu.
+     */
+    public boolean writeBatch(List<ApiObservation> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return false;
+        }
+        Metrics metrics = this.metrics;
+        long start = System.nanoTime();
+        metrics.counter("db.batchObservations").add(batch.size());
+
+        // Gộp các sự kiện theo khóa (host, path, method), giữ nguyên thứ tự xuất hiện đầu tiên.
+        Map<List<String>, PendingApiChanges> pendingByKey = new LinkedHashMap<>();
+        for (ApiObservation observation : batch) {
+            pendingByKey.computeIfAbsent(
+                    List.of(observation.host(), observation.path(), observation.method()),
+                    key -> new PendingApiChanges(observation.method(), observation.host(), observation.path())
+            ).merge(observation);
+        }
+
+        synchronized (this) {
+            List<PendingApiChanges> changed = new ArrayList<>();
+            boolean originalAutoCommit = true;
+            // Nếu transaction bị hủy, các tên tham số ghi trong đợt này cũng bị hủy theo.
+            int persistedNamesBefore = persistedParamNames;
+            try {
+                originalAutoCommit = writeConnection.getAutoCommit();
+                writeConnection.setAutoCommit(false);
+                for (PendingApiChanges pending : pendingByKey.values()) {
+                    if (pending.applyTo(this, metrics)) {
+                        changed.add(pending);
                     }
                 }
-            } else { // API mới -> Chèn dòng mới
-                String paramsStr = setToString(requestParams);
-                String insertSql = "INSERT INTO api_log (method, host, path, unscanned_params) VALUES (?, ?, ?, ?)";
-                try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                    insertStmt.setString(1, method);
-                    insertStmt.setString(2, host);
-                    insertStmt.setString(3, path);
-                    insertStmt.setString(4, paramsStr);
-                    insertStmt.executeUpdate();
+                long commitStart = System.nanoTime();
+                writeConnection.commit();
+                metrics.stage("db.commit").recordSince(commitStart);
+                notifyRowsChanged(changed);
+                return !changed.isEmpty();
+            } catch (SQLException e) {
+                persistedParamNames = persistedNamesBefore;
+                try {
+                    writeConnection.rollback();
+                } catch (SQLException rollbackError) {
+                    api.logging().logToError("Failed to rollback observation batch: " + rollbackError.getMessage(), rollbackError);
+                }
+                throw new BatchRolledBackException(e);
+            } finally {
+                try {
+                    writeConnection.setAutoCommit(originalAutoCommit);
+                } catch (SQLException e) {
+                    api.logging().logToError("Failed to restore database autocommit: " + e.getMessage(), e);
+                }
+                metrics.stage("db.batch").recordSince(start);
+            }
+        }
+    }
+
+    /**
+     * Một đợt sự kiện đã bị rollback do lỗi SQL; không thay đổi nào của đợt được lưu.
+     */
+    static final class BatchRolledBackException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private BatchRolledBackException(SQLException cause) {
+            super("Observation batch rolled back: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Đọc lại các API vừa thay đổi và chuyển chúng cho {@link ChangeListener}.
+     * Lỗi khi đọc chỉ được ghi log vì dữ liệu đã được commit.
+     */
+    private void notifyRowsChanged(List<PendingApiChanges> changed) {
+        ChangeListener listener = changeListener;
+        if (listener == null || changed.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changed.size());
+        try {
+            PreparedStatement stmt = writer().prepare(API_ROW_SELECT + "WHERE host = ? AND path = ? AND method = ?");
+            for (PendingApiChanges pending : changed) {
+                stmt.setString(1, pending.host);
+                stmt.setString(2, pending.path);
+                stmt.setString(3, pending.method);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        rows.add(apiRowFromResultSet(rs));
+                    }
                 }
             }
         } catch (SQLException e) {
-            api.logging().logToError("Error during insert/update API: " + e.getMessage(), e);
+            api.logging().logToError("Failed to read changed API rows: " + e.getMessage(), e);
+            return;
+        }
+        listener.apiRowsChanged(rows);
+    }
+
+    /**
+     * Các thay đổi đang chờ ghi của một API trong một đợt, sau khi đã gộp các sự kiện trùng khóa.
+     */
+    private static class PendingApiChanges {
+        private final String method;
+        private final String host;
+        private final String path;
+        private final Set<String> observedParams = new HashSet<>();
+        private final Set<String> scannedParams = new HashSet<>();
+        private boolean observed;
+        private boolean scanned;
+        private boolean fromRepeater;
+        private boolean autoBypass;
+
+        private PendingApiChanges(String method, String host, String path) {
+            this.method = method;
+            this.host = host;
+            this.path = path;
+        }
+
+        private void merge(ApiObservation observation) {
+            switch (observation.kind()) {
+                case OBSERVED -> {
+                    observed = true;
+                    observedParams.addAll(observation.params());
+                }
+                case SCANNED -> {
+                    scanned = true;
+                    scannedParams.addAll(observation.params());
+                }
+                case REPEATER -> fromRepeater = true;
+                case AUTO_BYPASS -> autoBypass = true;
+            }
+        }
+
+        /**
+         * Áp dụng các thay đổi theo thứ tự: ghi nhận tham số, auto-bypass, Repeater, rồi mới đến Scanner,
+         * để tham số vừa được phát hiện trong cùng đợt vẫn có thể được đánh dấu là đã quét.
+         * Lỗi SQL được ném ra để cả đợt bị rollback thay vì lưu một API ghi dở.
+         */
+        private boolean applyTo(DatabaseManager db, Metrics metrics) throws SQLException {
+            boolean changed = false;
+            long start = System.nanoTime();
+            if (observed) {
+                changed |= db.upsertApi(method, host, path, observedParams);
+                start = record(metrics, "db.insertOrUpdateApi", start);
+            }
+            if (autoBypass) {
+                changed |= db.upsertAutoBypass(method, host, path);
+                start = record(metrics, "db.autoBypassApi", start);
+            }
+            if (fromRepeater) {
+                changed |= db.markFromRepeater(method, host, path);
+                start = record(metrics, "db.updateRepeaterStatus", start);
+            }
+            if (scanned) {
+                changed |= db.markScannedParameters(method, host, path, scannedParams);
+                record(metrics, "db.processScannedParameters", start);
+            }
+            return changed;
+        }
+
+        /**
+         * Ghi thời gian của một thao tác và trả về mốc bắt đầu cho thao tác tiếp theo.
+         */
+        private static long record(Metrics metrics, String stage, long start) {
+            long now = System.nanoTime();
+            metrics.stage(stage).record(now - start);
+            return now;
         }
     }
 
     /**
      * Xử lý các tham số được quét từ một request của Burp Scanner.
-     * Các tham số nào khớp với danh sách `unscanned_params` sẽ được chuyển sang `scanned_params`.
-     * Nếu `unscanned_params` trở nên rỗng, API sẽ được đánh dấu là `is_scanned = true`.
+     * Các tham số chưa quét khớp với request của Scanner sẽ được đánh dấu `is_scanned` trong `api_param`.
+     * Nếu API không còn tham số nào chưa quét, API sẽ được đánh dấu là `is_scanned = true`.
+     * <p>
+     * Tập tham số chưa quét của API được đọc ra dưới dạng mảng id; phần giao với tham số của Scanner và
+     * phần còn lại được tính bằng phép trộn mảng, nên chỉ các tham số thực sự đổi trạng thái mới được ghi.
+     * Giống {@link #insertOrUpdateApi}, phương thức giữ khóa của DatabaseManager vì dùng chung kết nối ghi.
      *
      * @param method        Phương thức HTTP của request từ Scanner.
      * @param host          Host của request.
@@ -224,100 +930,120 @@ public class DatabaseManager {
      * @return true nếu có sự thay đổi trong CSDL, ngược lại false.
      */
     public synchronized boolean processScannedParameters(String method, String host, String path, Set<String> scannerParams) {
-        String selectSql = "SELECT unscanned_params, scanned_params FROM api_log WHERE host = ? AND path = ? AND method = ?";
-        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
-            selectStmt.setString(1, host);
-            selectStmt.setString(2, path);
-            selectStmt.setString(3, method);
-            ResultSet rs = selectStmt.executeQuery();
-
-            if (rs.next()) {
-                Set<String> unscannedDbSet = stringToSet(rs.getString("unscanned_params"));
-                if (unscannedDbSet.isEmpty()) return false; // Không có gì để quét.
-
-                // Tìm các tham số vừa được quét (phần giao giữa param của scanner và param chưa quét).
-                Set<String> newlyScannedParams = new HashSet<>(scannerParams);
-                newlyScannedParams.retainAll(unscannedDbSet);
-                if (newlyScannedParams.isEmpty()) return false; // Scanner không quét trúng param nào cần thiết.
-
-                // Cập nhật lại các tập hợp param.
-                Set<String> scannedDbSet = stringToSet(rs.getString("scanned_params"));
-                unscannedDbSet.removeAll(newlyScannedParams);
-                scannedDbSet.addAll(newlyScannedParams);
-
-                // Cập nhật CSDL với trạng thái mới.
-                String updateSql = "UPDATE api_log SET unscanned_params = ?, scanned_params = ?, is_scanned = ?, last_seen = CURRENT_TIMESTAMP WHERE host = ? AND path = ? AND method = ?";
-                try (PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
-                    updateStmt.setString(1, setToString(unscannedDbSet));
-                    updateStmt.setString(2, setToString(scannedDbSet));
-                    updateStmt.setBoolean(3, unscannedDbSet.isEmpty()); // is_scanned = true chỉ khi không còn gì để quét.
-                    updateStmt.setString(4, host);
-                    updateStmt.setString(5, path);
-                    updateStmt.setString(6, method);
-                    updateStmt.executeUpdate();
-                    return true;
-                }
-            }
+        try {
+            return markScannedParameters(method, host, path, scannerParams);
         } catch (SQLException e) {
             api.logging().logToError("Error during processScannedParameters: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Phần thân của {@link #processScannedParameters}; lỗi được ném ra để đợt ghi chứa nó bị rollback.
+     * Người gọi phải đang giữ khóa của DatabaseManager.
+     */
+    private boolean markScannedParameters(String method, String host, String path, Set<String> scannerParams) throws SQLException {
+        // Tên chưa có trong từ điển chắc chắn không phải tham số chưa quét của API nào.
+        int[] scannerIds = paramDictionary.lookupIds(scannerParams);
+        if (scannerIds.length == 0) {
+            return false;
+        }
+        String unscannedSql = "SELECT name_id FROM api_param WHERE api_id = ? AND is_scanned = 0 ORDER BY name_id";
+        String markParamSql = "UPDATE api_param SET is_scanned = 1, last_scanned = CURRENT_TIMESTAMP WHERE api_id = ? AND name_id = ?";
+        String updateApiSql = "UPDATE api_log SET is_scanned = ?, last_seen = CURRENT_TIMESTAMP WHERE id = ?";
+        int apiId = findApiId(method, host, path);
+        if (apiId < 0) {
+            return false;
+        }
+        IdBuffer buffer = new IdBuffer();
+        PreparedStatement unscannedStmt = writer().prepare(unscannedSql);
+        unscannedStmt.setInt(1, apiId);
+        try (ResultSet rs = unscannedStmt.executeQuery()) {
+            while (rs.next()) {
+                buffer.add(rs.getInt(1));
+            }
+        }
+        int[] unscanned = buffer.drain();
+        int[] hits = ParamDictionary.intersect(unscanned, scannerIds);
+        if (hits.length == 0) {
+            return false; // Scanner không quét trúng param nào cần thiết.
         }
-        return false;
+        PreparedStatement markStmt = writer().prepare(markParamSql);
+        for (int nameId : hits) {
+            markStmt.setInt(1, apiId);
+            markStmt.setInt(2, nameId);
+            markStmt.addBatch();
+        }
+        markStmt.executeBatch();
+        // is_scanned = true chỉ khi không còn tham số nào chưa quét.
+        PreparedStatement updateStmt = writer().prepare(updateApiSql);
+        updateStmt.setBoolean(1, hits.length == unscanned.length);
+        updateStmt.setInt(2, apiId);
+        updateStmt.executeUpdate();
+        return true;
+    }
+
+    /**
+     * Cộng số dòng bị ảnh hưởng từ kết quả của {@link PreparedStatement#executeBatch()}.
+     */
+    private static int sumUpdateCounts(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
     }
     
     /**
      * Xử lý tính năng auto-bypass cho API GET không có tham số.
      * Sử dụng ON CONFLICT để tránh ghi đè các API đã được đánh dấu `scanned` hoặc `rejected`
-     * Đồng thời đảm bảo không đánh dấu bypass nếu API đó còn param chưa được scan
+     * Đồng thời đảm bảo không đánh dấu bypass nếu API đó còn param chưa được scan.
+     * Lỗi được ném ra để đợt ghi chứa nó bị rollback. Người gọi phải đang giữ khóa của DatabaseManager.
      *
      * @param method Phương thức HTTP (luôn là GET).
      * @param host   Host của API.
      * @param path   Path của API.
      * @return true nếu có sự thay đổi trong CSDL.
      */
-    public synchronized boolean autoBypassApi(String method, String host, String path) {
+    private boolean upsertAutoBypass(String method, String host, String path) throws SQLException {
         String upsertSql = """
-            INSERT INTO api_log (method, host, path, unscanned_params, scanned_params, is_bypassed)
-            VALUES (?, ?, ?, '', '', 1)
+            INSERT INTO api_log (method, host, path, is_bypassed)
+            VALUES (?, ?, ?, 1)
             ON CONFLICT(host, path, method) DO UPDATE SET
                 is_bypassed = CASE
-                    WHEN api_log.is_scanned = 0 AND api_log.is_rejected = 0 AND api_log.unscanned_params = ''
+                    WHEN api_log.is_scanned = 0 AND api_log.is_rejected = 0
+                         AND NOT EXISTS (SELECT 1 FROM api_param WHERE api_id = api_log.id AND is_scanned = 0)
                     THEN 1
                     ELSE api_log.is_bypassed
                 END,
                 last_seen = CURRENT_TIMESTAMP
             """;
-        try (PreparedStatement stmt = connection.prepareStatement(upsertSql)) {
-            stmt.setString(1, method);
-            stmt.setString(2, host);
-            stmt.setString(3, path);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            api.logging().logToError("Error during autoBypassApi: " + e.getMessage(), e);
-            return false;
-        }
+        PreparedStatement stmt = writer().prepare(upsertSql);
+        stmt.setString(1, method);
+        stmt.setString(2, host);
+        stmt.setString(3, path);
+        return stmt.executeUpdate() > 0;
     }
 
     /**
      * Đánh dấu một API đã được gửi từ Repeater.
      * Chỉ cập nhật nếu trạng thái hiện tại là chưa được đánh dấu để tránh reload UI không cần thiết.
+     * Lỗi được ném ra để đợt ghi chứa nó bị rollback. Người gọi phải đang giữ khóa của DatabaseManager.
      *
      * @param method Phương thức HTTP.
      * @param host   Host của API.
      * @param path   Path của API.
      * @return true nếu có sự thay đổi trong CSDL, ngược lại false.
      */
-    public synchronized boolean updateRepeaterStatus(String method, String host, String path) {
+    private boolean markFromRepeater(String method, String host, String path) throws SQLException {
         String sql = "UPDATE api_log SET is_from_repeater = 1, last_seen = CURRENT_TIMESTAMP WHERE host = ? AND path = ? AND method = ? AND is_from_repeater = 0";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, host);
-            stmt.setString(2, path);
-            stmt.setString(3, method);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
-        } catch (SQLException e) {
-            api.logging().logToError("Error during updateRepeaterStatus: " + e.getMessage(), e);
-            return false;
-        }
+        PreparedStatement stmt = writer().prepare(sql);
+        stmt.setString(1, host);
+        stmt.setString(2, path);
+        stmt.setString(3, method);
+        return stmt.executeUpdate() > 0;
     }
     
     /**
@@ -328,24 +1054,27 @@ public class DatabaseManager {
      * @return Một Set chứa tất cả tên tham số, hoặc empty set nếu không tìm thấy.
      */
     public Set<String> getAllParamsById(int id) {
-        String sql = "SELECT unscanned_params, scanned_params FROM api_log WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                Set<String> allParams = new HashSet<>();
-                allParams.addAll(stringToSet(rs.getString("unscanned_params")));
-                allParams.addAll(stringToSet(rs.getString("scanned_params")));
-                return allParams;
-            }
+        Set<String> allParams = new HashSet<>();
+        String sql = "SELECT n.name FROM api_param p JOIN param_name n ON n.id = p.name_id WHERE p.api_id = ?";
+        try {
+            withReader(statements -> {
+                PreparedStatement stmt = statements.prepare(sql);
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        allParams.add(rs.getString("name"));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             api.logging().logToError("Failed to get params by id: " + e.getMessage(), e);
         }
-        return new HashSet<>();
+        return allParams;
     }
 
     /**
-     * Chuyển đổi một chuỗi (dữ liệu từ DB) thành một Set các chuỗi.
+     * Chuyển đổi một chuỗi (dữ liệu từ các cột cũ trong DB) thành một Set các chuỗi.
      *
      * @param str Chuỗi được phân tách bởi '|'.
      * @return Một Set các tham số.
@@ -356,77 +1085,205 @@ public class DatabaseManager {
     }
 
     /**
-     * Chuyển đổi một Set các chuỗi thành một chuỗi duy nhất để lưu vào DB.
-     * Các tham số được sắp xếp theo bảng chữ cái để đảm bảo tính nhất quán.
-     *
-     * @param set Tập hợp các tham số.
-     * @return Một chuỗi được phân tách bởi '|'.
-     */
-    private String setToString(Set<String> set) {
-        if (set == null || set.isEmpty()) return "";
-        return set.stream().sorted().collect(Collectors.joining("|"));
+     * Chuẩn hóa lại path của tất cả các API đã lưu theo lô (xem {@link #normalizeStoredPaths(String, BinaryOperator, ProgressListener)}).
+     *
+     * @param pathNormalizer Hàm (host, path) -> path đã chuẩn hóa.
+     * @param progress       Nhận tiến độ ghi (có thể null).
+     * @return Số bản ghi bị thay đổi hoặc bị gộp.
+     */
+    public int normalizeStoredPaths(BinaryOperator<String> pathNormalizer, ProgressListener progress) {
+        return normalizeStoredPaths(null, pathNormalizer, progress);
     }
 
-    public synchronized int normalizeStoredPaths(UnaryOperator<String> pathNormalizer) {
+    /**
+     * Chuẩn hóa lại path của các API đã lưu theo lô.
+     * <p>
+     * Toàn bộ khóa đích (method, host, path đã chuẩn hóa) được tính trong bộ nhớ và các bản ghi trùng khóa được
+     * gom nhóm trước; sau đó CSDL chỉ nhận vài câu lệnh batch trong một transaction thay vì một lần tìm kiếm
+     * và vài câu UPDATE/DELETE riêng lẻ cho mỗi bản ghi. Trong mỗi nhóm, bản ghi được giữ lại là bản ghi đã quét
+     * (nếu có), rồi đến bản ghi đang ở đúng path đích, rồi đến bản ghi có id nhỏ nhất; tham số của các bản ghi
+     * còn lại được chuyển sang nó và các cờ trạng thái được gộp bằng phép OR.
+     *
+     * @param host           Chỉ chuẩn hóa các API của host này (null: mọi host).
+     * @param pathNormalizer Hàm (host, path) -> path đã chuẩn hóa.
+     * @param progress       Nhận tiến độ ghi (có thể null).
+     * @return Số bản ghi bị thay đổi hoặc bị gộp.
+     */
+    public synchronized int normalizeStoredPaths(String host, BinaryOperator<String> pathNormalizer, ProgressListener progress) {
         if (pathNormalizer == null) {
             return 0;
         }
 
         List<ApiRecord> records = new ArrayList<>();
-        String selectSql = "SELECT id, method, host, path, unscanned_params, scanned_params, is_scanned, is_rejected, is_bypassed, is_from_repeater FROM api_log ORDER BY id ASC";
-        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(selectSql)) {
-            while (rs.next()) {
-                records.add(recordFromResultSet(rs));
+        String selectSql = "SELECT id, method, host, path, is_scanned, is_rejected, is_bypassed, is_from_repeater FROM api_log"
+                + (host != null ? " WHERE host = ?" : "") + " ORDER BY id ASC";
+        try (PreparedStatement stmt = writeConnection.prepareStatement(selectSql)) {
+            if (host != null) {
+                stmt.setString(1, host);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(recordFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
             api.logging().logToError("Failed to load API data for path normalization: " + e.getMessage(), e);
             return 0;
         }
 
+        // Gom nhóm theo khóa đích. Chỉ những nhóm có ít nhất một bản ghi đổi path mới cần ghi.
+        Map<String, List<ApiRecord>> groups = new LinkedHashMap<>();
+        Map<String, String> targetPathByKey = new HashMap<>();
+        Set<String> changedKeys = new HashSet<>();
+        for (ApiRecord record : records) {
+            String normalizedPath = pathNormalizer.apply(record.host, record.path);
+            if (normalizedPath == null) {
+                normalizedPath = record.path;
+            }
+            String key = recordKey(record.method, record.host, normalizedPath);
+            groups.computeIfAbsent(key, k -> new ArrayList<>(1)).add(record);
+            targetPathByKey.putIfAbsent(key, normalizedPath);
+            if (!normalizedPath.equals(record.path)) {
+                changedKeys.add(key);
+            }
+        }
+        if (changedKeys.isEmpty()) {
+            return 0;
+        }
+
+        List<ApiRecord> renames = new ArrayList<>();
+        List<String> renamePaths = new ArrayList<>();
+        List<ApiRecord[]> merges = new ArrayList<>();
+        int mergedGroups = 0;
+        // Các bản ghi đang chiếm một khóa đích của nhóm khác nhưng chính chúng lại bị chuyển đi:
+        // phải dời chúng sang một path tạm trước để không vi phạm UNIQUE(host, path, method) giữa chừng.
+        List<ApiRecord> vacating = new ArrayList<>();
+        for (String key : changedKeys) {
+            List<ApiRecord> group = groups.get(key);
+            String targetPath = targetPathByKey.get(key);
+            ApiRecord keep = chooseRecordToKeep(group, targetPath);
+            if (group.size() == 1) {
+                renames.add(keep);
+                renamePaths.add(targetPath);
+            } else {
+                for (ApiRecord record : group) {
+                    if (record != keep) {
+                        merges.add(new ApiRecord[]{keep, record});
+                    }
+                }
+                mergedGroups++;
+            }
+            for (ApiRecord record : group) {
+                String currentKey = recordKey(record.method, record.host, record.path);
+                if (!currentKey.equals(key) && changedKeys.contains(currentKey)) {
+                    vacating.add(record);
+                }
+            }
+        }
+
+        int total = vacating.size() + merges.size() * 2 + renames.size() + mergedGroups;
+        int[] done = {0};
         int affectedRows = 0;
         boolean originalAutoCommit = true;
         try {
-            originalAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+            originalAutoCommit = writeConnection.getAutoCommit();
+            writeConnection.setAutoCommit(false);
+            try (Statement stmt = writeConnection.createStatement()) {
+                stmt.execute("CREATE TEMP TABLE IF NOT EXISTS path_merge (merge_id INTEGER PRIMARY KEY, keep_id INTEGER NOT NULL)");
+                stmt.execute("DELETE FROM path_merge");
+            }
 
-            for (ApiRecord record : records) {
-                String normalizedPath = pathNormalizer.apply(record.path);
-                if (normalizedPath == null || normalizedPath.equals(record.path)) {
-                    continue;
+            try (PreparedStatement vacateStmt = writeConnection.prepareStatement("UPDATE api_log SET path = ? WHERE id = ?");
+                 PreparedStatement mergeMapStmt = writeConnection.prepareStatement("INSERT INTO path_merge (merge_id, keep_id) VALUES (?, ?)");
+                 PreparedStatement renameStmt = writeConnection.prepareStatement("UPDATE api_log SET path = ?, last_seen = CURRENT_TIMESTAMP WHERE id = ?");
+                 PreparedStatement mergeStmt = writeConnection.prepareStatement("""
+                         UPDATE api_log
+                         SET path = ?,
+                             is_scanned = ? AND NOT EXISTS (SELECT 1 FROM api_param WHERE api_id = api_log.id AND is_scanned = 0),
+                             is_rejected = ?,
+                             is_bypassed = ?,
+                             is_from_repeater = ?,
+                             last_seen = CURRENT_TIMESTAMP
+                         WHERE id = ?
+                         """)) {
+                for (ApiRecord record : vacating) {
+                    vacateStmt.setString(1, VACATED_PATH_PREFIX + record.id);
+                    vacateStmt.setInt(2, record.id);
+                    addBatch(vacateStmt, progress, done, total);
                 }
+                vacateStmt.executeBatch();
 
-                ApiRecord target = findRecord(record.method, record.host, normalizedPath);
-                if (target == null || target.id == record.id) {
-                    try (PreparedStatement stmt = connection.prepareStatement(
-                            "UPDATE api_log SET path = ?, last_seen = CURRENT_TIMESTAMP WHERE id = ?")) {
-                        stmt.setString(1, normalizedPath);
-                        stmt.setInt(2, record.id);
-                        affectedRows += stmt.executeUpdate();
+                // Ghi bảng ánh xạ bản ghi bị gộp -> bản ghi được giữ, rồi chuyển tham số và xóa bằng hai câu lệnh tập hợp.
+                for (ApiRecord[] pair : merges) {
+                    mergeMapStmt.setInt(1, pair[1].id);
+                    mergeMapStmt.setInt(2, pair[0].id);
+                    addBatch(mergeMapStmt, progress, done, total);
+                }
+                mergeMapStmt.executeBatch();
+                if (!merges.isEmpty()) {
+                    try (Statement stmt = writeConnection.createStatement()) {
+                        // "WHERE true" tránh việc SQLite hiểu nhầm ON CONFLICT là mệnh đề ON của JOIN.
+                        stmt.executeUpdate("""
+                                INSERT INTO api_param (api_id, name_id, is_scanned, first_seen, last_scanned)
+                                SELECT m.keep_id, p.name_id, p.is_scanned, p.first_seen, p.last_scanned
+                                FROM api_param p JOIN path_merge m ON p.api_id = m.merge_id WHERE true
+                                ON CONFLICT(api_id, name_id) DO UPDATE SET
+                                    is_scanned = max(is_scanned, excluded.is_scanned),
+                                    first_seen = min(first_seen, excluded.first_seen),
+                                    last_scanned = max(coalesce(last_scanned, excluded.last_scanned), coalesce(excluded.last_scanned, last_scanned))
+                                """);
+                        // Tham số của bản ghi bị xóa được xóa theo nhờ ON DELETE CASCADE.
+                        stmt.executeUpdate("DELETE FROM api_log WHERE id IN (SELECT merge_id FROM path_merge)");
+                    }
+                    done[0] += merges.size();
+                    if (progress != null) {
+                        progress.onProgress(done[0], total);
                     }
-                } else if (record.isScanned && !target.isScanned) {
-                    try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM api_log WHERE id = ?")) {
-                        stmt.setInt(1, target.id);
-                        stmt.executeUpdate();
+                }
+
+                for (int i = 0; i < renames.size(); i++) {
+                    renameStmt.setString(1, renamePaths.get(i));
+                    renameStmt.setInt(2, renames.get(i).id);
+                    addBatch(renameStmt, progress, done, total);
+                }
+                renameStmt.executeBatch();
+
+                // Cập nhật bản ghi được giữ của mỗi nhóm gộp với các cờ đã gộp.
+                for (String key : changedKeys) {
+                    List<ApiRecord> group = groups.get(key);
+                    if (group.size() == 1) {
+                        continue;
                     }
-                    mergeRecordsInto(record, target, normalizedPath);
-                    affectedRows++;
-                } else {
-                    mergeRecordsInto(target, record, normalizedPath);
-                    try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM api_log WHERE id = ?")) {
-                        stmt.setInt(1, record.id);
-                        stmt.executeUpdate();
+                    String targetPath = targetPathByKey.get(key);
+                    ApiRecord keep = chooseRecordToKeep(group, targetPath);
+                    boolean scanned = false, rejected = false, bypassed = false, fromRepeater = false;
+                    for (ApiRecord record : group) {
+                        scanned |= record.isScanned;
+                        rejected |= record.isRejected;
+                        bypassed |= record.isBypassed;
+                        fromRepeater |= record.isFromRepeater;
                     }
-                    affectedRows++;
+                    mergeStmt.setString(1, targetPath);
+                    mergeStmt.setBoolean(2, scanned);
+                    mergeStmt.setBoolean(3, rejected);
+                    mergeStmt.setBoolean(4, bypassed);
+                    mergeStmt.setBoolean(5, fromRepeater);
+                    mergeStmt.setInt(6, keep.id);
+                    addBatch(mergeStmt, progress, done, total);
                 }
+                mergeStmt.executeBatch();
             }
 
-            connection.commit();
-            if (affectedRows > 0) {
-                api.logging().logToOutput("Normalized " + affectedRows + " stored API path records.");
+            writeConnection.commit();
+            affectedRows = renames.size() + merges.size();
+            if (progress != null) {
+                progress.onProgress(total, total);
             }
+            api.logging().logToOutput("Normalized " + affectedRows + " stored API path records (" + renames.size()
+                    + " renamed, " + merges.size() + " merged into " + mergedGroups + " APIs).");
         } catch (SQLException e) {
             try {
-                connection.rollback();
+                writeConnection.rollback();
             } catch (SQLException rollbackError) {
                 api.logging().logToError("Failed to rollback path normalization: " + rollbackError.getMessage(), rollbackError);
             }
@@ -434,7 +1291,7 @@ public class DatabaseManager {
             return 0;
         } finally {
             try {
-                connection.setAutoCommit(originalAutoCommit);
+                writeConnection.setAutoCommit(originalAutoCommit);
             } catch (SQLException e) {
                 api.logging().logToError("Failed to restore database autocommit: " + e.getMessage(), e);
             }
@@ -442,64 +1299,75 @@ public class DatabaseManager {
         return affectedRows;
     }
 
-    private ApiRecord findRecord(String method, String host, String path) throws SQLException {
-        String sql = "SELECT id, method, host, path, unscanned_params, scanned_params, is_scanned, is_rejected, is_bypassed, is_from_repeater FROM api_log WHERE host = ? AND path = ? AND method = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, host);
-            stmt.setString(2, path);
-            stmt.setString(3, method);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() ? recordFromResultSet(rs) : null;
+    /**
+     * Nhận tiến độ của một thao tác chạy lâu trên CSDL.
+     */
+    @FunctionalInterface
+    interface ProgressListener {
+        /**
+         * Được gọi trên luồng đang thực hiện thao tác.
+         *
+         * @param done  Số bước đã xong.
+         * @param total Tổng số bước.
+         */
+        void onProgress(int done, int total);
+    }
+
+    private static final int PROGRESS_STEP = 500;
+    /**
+     * Path tạm (không thể là path HTTP thật) cho các bản ghi cần nhường chỗ trong lúc chuẩn hóa theo lô.
+     */
+    private static final String VACATED_PATH_PREFIX = "\0normalizing:";
+
+    /**
+     * Thêm câu lệnh hiện tại vào batch; cứ mỗi {@link #PROGRESS_STEP} bước thì đẩy batch xuống CSDL và báo tiến độ.
+     */
+    private static void addBatch(PreparedStatement stmt, ProgressListener progress, int[] done, int total) throws SQLException {
+        stmt.addBatch();
+        if (++done[0] % PROGRESS_STEP == 0) {
+            stmt.executeBatch();
+            if (progress != null) {
+                progress.onProgress(done[0], total);
+            }
         }
     }
 
-    private ApiRecord recordFromResultSet(ResultSet rs) throws SQLException {
-        return new ApiRecord(
-                rs.getInt("id"),
-                rs.getString("method"),
-                rs.getString("host"),
-                rs.getString("path"),
-                stringToSet(rs.getString("unscanned_params")),
-                stringToSet(rs.getString("scanned_params")),
-                rs.getBoolean("is_scanned"),
-                rs.getBoolean("is_rejected"),
-                rs.getBoolean("is_bypassed"),
-                rs.getBoolean("is_from_repeater")
-        );
+    /**
+     * Chọn bản ghi được giữ lại trong một nhóm trùng khóa: đã quét, rồi đang ở đúng path đích, rồi id nhỏ nhất.
+     */
+    private static ApiRecord chooseRecordToKeep(List<ApiRecord> group, String targetPath) {
+        ApiRecord best = null;
+        for (ApiRecord record : group) {
+            if (best == null || keepRank(record, targetPath) > keepRank(best, targetPath)) {
+                best = record;
+            }
+        }
+        return best;
     }
 
-    private void mergeRecordsInto(ApiRecord keep, ApiRecord merge, String path) throws SQLException {
-        Set<String> mergedScanned = new HashSet<>(keep.scannedParams);
-        mergedScanned.addAll(merge.scannedParams);
+    private static int keepRank(ApiRecord record, String targetPath) {
+        return (record.isScanned ? 2 : 0) + (record.path.equals(targetPath) ? 1 : 0);
+    }
 
-        Set<String> mergedUnscanned = new HashSet<>(keep.unscannedParams);
-        mergedUnscanned.addAll(merge.unscannedParams);
-        mergedUnscanned.removeAll(mergedScanned);
+    private static String recordKey(String method, String host, String path) {
+        return method + '\n' + host + '\n' + path;
+    }
 
-        boolean mergedScannedStatus = (keep.isScanned || merge.isScanned) && mergedUnscanned.isEmpty();
-        String sql = """
-                UPDATE api_log
-                SET path = ?,
-                    unscanned_params = ?,
-                    scanned_params = ?,
-                    is_scanned = ?,
-                    is_rejected = ?,
-                    is_bypassed = ?,
-                    is_from_repeater = ?,
-                    last_seen = CURRENT_TIMESTAMP
-                WHERE id = ?
-                """;
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, path);
-            stmt.setString(2, setToString(mergedUnscanned));
-            stmt.setString(3, setToString(mergedScanned));
-            stmt.setBoolean(4, mergedScannedStatus);
-            stmt.setBoolean(5, keep.isRejected || merge.isRejected);
-            stmt.setBoolean(6, keep.isBypassed || merge.isBypassed);
-            stmt.setBoolean(7, keep.isFromRepeater || merge.isFromRepeater);
-            stmt.setInt(8, keep.id);
-            stmt.executeUpdate();
-        }
+    /**
+     * Đọc một {@link ApiRecord} theo vị trí cột của câu SELECT trong {@link #normalizeStoredPaths}
+     * (đọc theo tên cột chậm hơn đáng kể khi duyệt hàng chục nghìn dòng).
+     */
+    private ApiRecord recordFromResultSet(ResultSet rs) throws SQLException {
+        return new ApiRecord(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getBoolean(5),
+                rs.getBoolean(6),
+                rs.getBoolean(7),
+                rs.getBoolean(8)
+        );
     }
 
     private static class ApiRecord {
@@ -507,8 +1375,6 @@ public class DatabaseManager {
         private final String method;
         private final String host;
         private final String path;
-        private final Set<String> unscannedParams;
-        private final Set<String> scannedParams;
         private final boolean isScanned;
         private final boolean isRejected;
         private final boolean isBypassed;
@@ -519,8 +1385,6 @@ public class DatabaseManager {
                 String method,
                 String host,
                 String path,
-                Set<String> unscannedParams,
-                Set<String> scannedParams,
                 boolean isScanned,
                 boolean isRejected,
                 boolean isBypassed,
@@ -529,8 +1393,6 @@ public class DatabaseManager {
             this.method = method;
             this.host = host;
             this.path = path;
-            this.unscannedParams = unscannedParams;
-            this.scannedParams = scannedParams;
             this.isScanned = isScanned;
             this.isRejected = isRejected;
             this.isBypassed = isBypassed;
@@ -551,12 +1413,12 @@ public class DatabaseManager {
                 is_bypassed = 1,
                 last_seen = CURRENT_TIMESTAMP
             WHERE
-                (unscanned_params IS NULL OR unscanned_params = '')
+                NOT EXISTS (SELECT 1 FROM api_param WHERE api_id = api_log.id AND is_scanned = 0)
                 AND is_scanned = 0
                 AND is_rejected = 0
                 AND is_bypassed = 0
             """;
-        try (Statement stmt = connection.createStatement()) {
+        try (Statement stmt = writeConnection.createStatement()) {
             int affectedRows = stmt.executeUpdate(sql);
             if (affectedRows > 0) {
                 api.logging().logToOutput("Retroactively bypassed " + affectedRows + " old GET APIs without parameters.");
@@ -576,58 +1438,42 @@ public class DatabaseManager {
      * @param columnName Tên của cột cần cập nhật.
      * @param value      Giá trị boolean mới.
      */
-    public void updateApiStatus(int id, String columnName, boolean value) {
+    public synchronized void updateApiStatus(int id, String columnName, boolean value) {
         if (!Arrays.asList("is_scanned", "is_rejected", "is_bypassed").contains(columnName)) {
             api.logging().logToError("Invalid column name for status update.");
             return;
         }
+        long start = System.nanoTime();
         String sql = String.format("UPDATE api_log SET %s = ?, last_seen = CURRENT_TIMESTAMP WHERE id = ?", columnName);
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try {
+            PreparedStatement pstmt = writer().prepare(sql);
             pstmt.setBoolean(1, value);
             pstmt.setInt(2, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             api.logging().logToError("Failed to update API status: " + e.getMessage(), e);
         }
+        metrics.stage("db.updateApiStatus").recordSince(start);
     }
 
     /**
      * Đóng kết nối cơ sở dữ liệu khi extension được gỡ bỏ.
      * Rất quan trọng để giải phóng tài nguyên.
      */
-    public void close() {
+    public synchronized void close() {
+        ReaderPool pool = readerPool;
+        readerPool = null;
+        if (pool != null) {
+            pool.close();
+        }
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            if (writeConnection != null && !writeConnection.isClosed()) {
+                // Đóng các câu lệnh đã lưu đệm cùng với kết nối.
+                writeStatements.close();
                 api.logging().logToOutput("Database connection closed.");
             }
         } catch (SQLException e) {
             api.logging().logToError("Error closing database connection: " + e.getMessage(), e);
         }
     }
-    
-    /**
-     * Lấy các cờ trạng thái (scanned, rejected, bypassed) của một API cụ thể.
-     * Được sử dụng để quyết định việc highlight và thêm note.
-     *
-     * @param method Phương thức HTTP.
-     * @param host   Host của API.
-     * @param path   Path của API.
-     * @return Một mảng Object chứa 3 giá trị boolean, hoặc null nếu không tìm thấy.
-     */
-    public Object[] getApiStatus(String method, String host, String path) {
-        String sql = "SELECT is_scanned, is_rejected, is_bypassed FROM api_log WHERE host = ? AND path = ? AND method = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, host);
-            stmt.setString(2, path);
-            stmt.setString(3, method);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Object[]{rs.getBoolean("is_scanned"), rs.getBoolean("is_rejected"), rs.getBoolean("is_bypassed")};
-            }
-        } catch (SQLException e) {
-            api.logging().logToError("Failed to get API status for " + host + path + ": " + e.getMessage(), e);
-        }
-        return null;
-    }
 }
@@ -0,0 +1,336 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Chỉ mục trong bộ nhớ của tất cả các API đã biết, khóa theo (host, path, method).
+ * <p>
+ * Chỉ mục được nạp từ bảng `api_log` khi khởi động và được cập nhật ngay trên luồng proxy
+ * theo cùng quy tắc với {@link DatabaseManager}. Nhờ vậy HttpHandler có thể quyết định
+ * highlight/note chỉ bằng một lần tra cứu bảng băm, còn việc ghi xuống SQLite được thực hiện
+ * sau (write-behind) qua {@link IngestionPipeline}.
+ * <p>
+ * Chỉ mục có thể đi trước CSDL (sự kiện đã áp dụng nhưng chưa ghi), nhưng không được giữ một thay đổi mà CSDL
+ * sẽ không bao giờ nhận: khi sự kiện bị bỏ hoặc đợt ghi bị rollback, API tương ứng được đánh dấu cũ
+ * ({@link #markStale}) và luồng ghi nạp lại nó từ CSDL ({@link #refreshStale}). Chỉ mục đi sau CSDL thì an toàn:
+ * lần quan sát sau chỉ gửi lại một sự kiện thừa.
+ * <p>
+ * Tập tham số của mỗi API được lưu dưới dạng mảng id đã sắp xếp theo {@link ParamDictionary} của CSDL đang mở,
+ * nên tên tham số lặp lại giữa các API chỉ tốn bộ nhớ một lần. Chỉ mục chỉ tra cứu từ điển, không cấp id: id chỉ
+ * được cấp trên luồng ghi khi tên thực sự được lưu, nên sự kiện bị bỏ không để lại id nào. Tên chưa có id được giữ
+ * dạng chuỗi trong trạng thái của API cho tới khi luồng ghi cấp id cho nó.
+ */
+class EndpointIndex {
+    // Các bit trạng thái của một API.
+    static final int SCANNED = 1;
+    static final int REJECTED = 1 << 1;
+    static final int BYPASSED = 1 << 2;
+    static final int FROM_REPEATER = 1 << 3;
+    /**
+     * Giá trị trả về của {@link #status} khi API chưa có trong chỉ mục.
+     */
+    static final int UNKNOWN = -1;
+
+    /**
+     * Các API đã biết. Khi nạp lại, một map mới được nạp đầy đủ rồi mới thay cho map cũ, nên luồng proxy không bao
+     * giờ thấy một chỉ mục rỗng giữa chừng.
+     */
+    private volatile ConcurrentHashMap<EndpointKey, EndpointState> endpoints = new ConcurrentHashMap<>();
+    /**
+     * Các API có thể đã khác với CSDL, chờ được nạp lại.
+     */
+    private final Set<EndpointKey> staleKeys = ConcurrentHashMap.newKeySet();
+    /**
+     * Từ điển tên tham số của CSDL đang mở; được thay khi nạp lại.
+     */
+    private volatile ParamDictionary dictionary = new ParamDictionary();
+
+    /**
+     * Nạp lại toàn bộ chỉ mục từ CSDL vào một map mới rồi thay map hiện tại bằng nó.
+     * <p>
+     * Sự kiện được áp dụng vào map cũ trong lúc nạp đã được gửi vào hàng đợi ghi nhưng có thể không có trong map mới:
+     * chỉ mục khi đó đi sau CSDL, điều này an toàn (xem mô tả lớp).
+     */
+    void reload(DatabaseManager databaseManager) {
+        EndpointIndex loaded = new EndpointIndex();
+        loaded.dictionary = databaseManager.paramDictionary();
+        staleKeys.clear();
+        databaseManager.loadEndpointIndex(loaded);
+        dictionary = loaded.dictionary;
+        endpoints = loaded.endpoints;
+    }
+
+    /**
+     * Thêm một API đã được lưu trong CSDL vào chỉ mục. Chỉ dùng khi nạp dữ liệu.
+     *
+     * @param unscannedParams Id (theo {@link ParamDictionary}) của các tham số chưa quét, đã sắp xếp tăng dần.
+     * @param scannedParams   Id của các tham số đã quét, đã sắp xếp tăng dần.
+     */
+    void put(String method, String host, String path, int[] unscannedParams, int[] scannedParams, int statusBits) {
+        EndpointState state = new EndpointState();
+        state.isNew = false;
+        state.unscannedParams = unscannedParams;
+        state.scannedParams = scannedParams;
+        state.statusBits = statusBits;
+        endpoints.put(new EndpointKey(method, host, path), state);
+    }
+
+    /**
+     * Lấy các bit trạng thái hiện tại của một API.
+     *
+     * @return Tổ hợp các bit {@link #SCANNED}, {@link #REJECTED}, {@link #BYPASSED}, {@link #FROM_REPEATER},
+     * hoặc {@link #UNKNOWN} nếu API chưa được biết.
+     */
+    int status(String method, String host, String path) {
+        EndpointState state = endpoints.get(new EndpointKey(method, host, path));
+        return state == null ? UNKNOWN : state.statusBits;
+    }
+
+    /**
+     * Duyệt (host, path) của mọi API trong chỉ mục; một cặp có thể lặp lại với các method khác nhau.
+     */
+    void forEachHostPath(BiConsumer<String, String> action) {
+        for (EndpointKey key : endpoints.keySet()) {
+            action.accept(key.host, key.path);
+        }
+    }
+
+    /**
+     * Áp dụng một sự kiện quan sát vào chỉ mục, theo cùng quy tắc mà {@link DatabaseManager} áp dụng vào CSDL.
+     *
+     * @return true nếu trạng thái của API thay đổi (hoặc API đang bị đánh dấu cũ), tức là sự kiện cần được ghi xuống CSDL.
+     */
+    boolean apply(ApiObservation observation) {
+        EndpointKey key = new EndpointKey(observation.method(), observation.host(), observation.path());
+        boolean changed = switch (observation.kind()) {
+            case OBSERVED -> observe(endpoints.computeIfAbsent(key, k -> new EndpointState()), observation.params());
+            case AUTO_BYPASS -> autoBypass(endpoints.computeIfAbsent(key, k -> new EndpointState()));
+            case SCANNED -> {
+                EndpointState state = endpoints.get(key);
+                yield state != null && markScanned(key, state, observation.params());
+            }
+            case REPEATER -> {
+                EndpointState state = endpoints.get(key);
+                yield state != null && markFromRepeater(state);
+            }
+        };
+        // API đang bị đánh dấu cũ: trạng thái trong bộ nhớ có thể chứa sự kiện chưa từng được ghi, nên vẫn gửi
+        // sự kiện xuống CSDL dù chỉ mục thấy không có gì thay đổi (ghi lặp thì vô hại).
+        return changed || (!staleKeys.isEmpty() && staleKeys.contains(key));
+    }
+
+    /**
+     * Cập nhật một cờ trạng thái do người dùng thay đổi trên giao diện.
+     *
+     * @param statusBit Một trong các bit {@link #SCANNED}, {@link #REJECTED}, {@link #BYPASSED}.
+     */
+    void setStatus(String method, String host, String path, int statusBit, boolean value) {
+        EndpointState state = endpoints.get(new EndpointKey(method, host, path));
+        if (state != null) {
+            synchronized (state) {
+                state.statusBits = value ? state.statusBits | statusBit : state.statusBits & ~statusBit;
+            }
+        }
+    }
+
+    /**
+     * Đánh dấu một API có thể đã khác với CSDL, ví dụ khi sự kiện của nó không được ghi xuống
+     * (hàng đợi đầy, đợt ghi bị rollback). Trạng thái hiện tại vẫn được dùng cho tới khi {@link #refreshStale} chạy.
+     */
+    void markStale(String method, String host, String path) {
+        staleKeys.add(new EndpointKey(method, host, path));
+    }
+
+    /**
+     * Nạp lại từ CSDL các API đã bị đánh dấu cũ; API chưa có trong CSDL bị loại khỏi chỉ mục để lần quan sát
+     * sau tạo lại mục và gửi lại sự kiện. Được gọi trên luồng ghi sau mỗi đợt.
+     */
+    void refreshStale(DatabaseManager databaseManager) {
+        if (staleKeys.isEmpty()) {
+            return;
+        }
+        List<EndpointKey> keys = new ArrayList<>(staleKeys);
+        staleKeys.removeAll(keys);
+        for (EndpointKey key : keys) {
+            int loaded = databaseManager.loadEndpoint(this, key.method, key.host, key.path);
+            if (loaded == 0) {
+                endpoints.remove(key);
+            } else if (loaded < 0) {
+                // Không đọc được: giữ trạng thái hiện tại và thử lại sau đợt kế tiếp.
+                staleKeys.add(key);
+            }
+        }
+    }
+
+    private boolean observe(EndpointState state, Set<String> names) {
+        ParamDictionary dictionary = this.dictionary;
+        int[] params = names.isEmpty() ? ParamDictionary.EMPTY_IDS : new int[names.size()];
+        int known = 0;
+        List<String> unknown = null;
+        for (String name : names) {
+            int id = dictionary.lookup(name);
+            if (id >= 0) {
+                params[known++] = id;
+            } else {
+                if (unknown == null) {
+                    unknown = new ArrayList<>();
+                }
+                unknown.add(name);
+            }
+        }
+        if (known < params.length) {
+            params = Arrays.copyOf(params, known);
+        }
+        Arrays.sort(params);
+        synchronized (state) {
+            boolean isNew = state.isNew;
+            state.isNew = false;
+            resolvePendingNames(state);
+            int[] newParams = ParamDictionary.subtract(ParamDictionary.subtract(params, state.scannedParams), state.unscannedParams);
+            boolean hasNewParams = newParams.length > 0;
+            state.unscannedParams = ParamDictionary.union(state.unscannedParams, newParams);
+            if (unknown != null) {
+                if (state.pendingNames == null) {
+                    state.pendingNames = new HashSet<>();
+                }
+                hasNewParams |= state.pendingNames.addAll(unknown);
+            }
+            // Có tham số mới -> reset trạng thái scanned và bypassed.
+            if (hasNewParams) {
+                state.statusBits &= ~(SCANNED | BYPASSED);
+            }
+            return isNew || hasNewParams;
+        }
+    }
+
+    private boolean autoBypass(EndpointState state) {
+        synchronized (state) {
+            boolean isNew = state.isNew;
+            state.isNew = false;
+            int bits = state.statusBits;
+            resolvePendingNames(state);
+            if ((bits & (SCANNED | REJECTED | BYPASSED)) == 0 && state.unscannedParams.length == 0 && state.pendingNames == null) {
+                state.statusBits = bits | BYPASSED;
+                return true;
+            }
+            return isNew;
+        }
+    }
+
+    private boolean markScanned(EndpointKey key, EndpointState state, Set<String> names) {
+        int[] params = dictionary.lookupIds(names);
+        synchronized (state) {
+            resolvePendingNames(state);
+            if (state.pendingNames != null && !Collections.disjoint(state.pendingNames, names)) {
+                // Scanner quét một tham số mà CSDL chưa lưu xong: sự kiện vẫn được ghi (sau sự kiện đã thêm tham số
+                // đó, theo thứ tự hàng đợi), còn chỉ mục nạp lại API từ CSDL sau đợt ghi.
+                staleKeys.add(key);
+                return true;
+            }
+            int[] hits = ParamDictionary.intersect(state.unscannedParams, params);
+            if (hits.length == 0) {
+                return false;
+            }
+            state.unscannedParams = ParamDictionary.subtract(state.unscannedParams, hits);
+            state.scannedParams = ParamDictionary.union(state.scannedParams, hits);
+            if (state.unscannedParams.length == 0 && state.pendingNames == null) {
+                state.statusBits |= SCANNED;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Chuyển các tên chờ đã được luồng ghi cấp id vào tập tham số chưa quét. Người gọi giữ khóa của {@code state}.
+     */
+    private void resolvePendingNames(EndpointState state) {
+        if (state.pendingNames == null) {
+            return;
+        }
+        ParamDictionary dictionary = this.dictionary;
+        int[] resolved = new int[state.pendingNames.size()];
+        int n = 0;
+        for (Iterator<String> it = state.pendingNames.iterator(); it.hasNext(); ) {
+            int id = dictionary.lookup(it.next());
+            if (id >= 0) {
+                resolved[n++] = id;
+                it.remove();
+            }
+        }
+        if (n > 0) {
+            resolved = Arrays.copyOf(resolved, n);
+            Arrays.sort(resolved);
+            state.unscannedParams = ParamDictionary.union(state.unscannedParams,
+                    ParamDictionary.subtract(resolved, state.scannedParams));
+        }
+        if (state.pendingNames.isEmpty()) {
+            state.pendingNames = null;
+        }
+    }
+
+    private boolean markFromRepeater(EndpointState state) {
+        synchronized (state) {
+            if ((state.statusBits & FROM_REPEATER) != 0) {
+                return false;
+            }
+            state.statusBits |= FROM_REPEATER;
+            return true;
+        }
+    }
+
+    /**
+     * Khóa định danh một API.
+     */
+    private static final class EndpointKey {
+        private final String method;
+        private final String host;
+        private final String path;
+        private final int hash;
+
+        private EndpointKey(String method, String host, String path) {
+            this.method = method;
+            this.host = host;
+            this.path = path;
+            this.hash = 31 * (31 * method.hashCode() + host.hashCode()) + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EndpointKey)) return false;
+            EndpointKey other = (EndpointKey) o;
+            return hash == other.hash && method.equals(other.method) && host.equals(other.host) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Trạng thái của một API. Các tập tham số được bảo vệ bởi khóa trên chính đối tượng này,
+     * còn {@code statusBits} là volatile để luồng proxy đọc mà không cần khóa.
+     */
+    private static final class EndpointState {
+        private int[] unscannedParams = ParamDictionary.EMPTY_IDS;
+        private int[] scannedParams = ParamDictionary.EMPTY_IDS;
+        /**
+         * Các tham số chưa quét mà từ điển chưa có id (sự kiện chưa được ghi); null nếu không có.
+         */
+        private Set<String> pendingNames;
+        private volatile int statusBits;
+        /**
+         * true cho tới lần áp dụng sự kiện đầu tiên nếu mục được tạo bởi luồng proxy (chưa có trong CSDL).
+         */
+        private boolean isNew = true;
+    }
+}
@@ -0,0 +1,347 @@
+package com.example;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hàng đợi có giới hạn cho các sự kiện {@link ApiObservation}, được xử lý bởi một luồng ghi duy nhất.
+ * <p>
+ * Luồng proxy của Burp chỉ cần gọi {@link #submit(ApiObservation)} rồi trả về ngay, thay vì tạo
+ * một Thread mới cho mỗi response. Khi hàng đợi đầy, {@link DropPolicy} quyết định sự kiện nào bị bỏ.
+ * <p>
+ * Luồng ghi gom các sự kiện thành từng đợt (tối đa {@code batchSize} sự kiện hoặc sau {@code flushIntervalMillis})
+ * và chuyển cả đợt cho {@link Sink}, để CSDL chỉ cần commit một lần cho mỗi đợt.
+ * <p>
+ * Mọi sự kiện bị bỏ (bị từ chối, bị đẩy ra khỏi hàng đợi theo {@link DropPolicy#DROP_OLDEST}, hoặc còn lại khi
+ * shutdown quá thời gian chờ) đều được báo cho {@link DropListener}, để nơi đã áp dụng sự kiện vào bộ nhớ
+ * biết rằng nó sẽ không bao giờ được ghi.
+ */
+class IngestionPipeline {
+    /**
+     * Dung lượng mặc định của hàng đợi.
+     */
+    static final int DEFAULT_CAPACITY = 10_000;
+    /**
+     * Số sự kiện tối đa trong một đợt ghi mặc định.
+     */
+    static final int DEFAULT_BATCH_SIZE = 500;
+    /**
+     * Thời gian gom sự kiện tối đa (ms) trước khi ghi một đợt, mặc định.
+     */
+    static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    /**
+     * Khoảng thời gian tối đa giữa hai lần báo thay đổi cho giao diện khi hàng đợi không bao giờ rỗng.
+     */
+    private static final long MAX_NOTIFY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Thời gian tối đa luồng proxy bị chặn khi dùng {@link DropPolicy#BLOCK}.
+     */
+    private static final long BLOCK_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Chính sách xử lý khi hàng đợi đã đầy.
+     */
+    enum DropPolicy {
+        /** Bỏ sự kiện mới nhất, luồng proxy không bao giờ bị chặn. */
+        DROP_NEWEST,
+        /** Bỏ sự kiện cũ nhất trong hàng đợi để nhường chỗ cho sự kiện mới. */
+        DROP_OLDEST,
+        /** Chặn luồng proxy trong một khoảng ngắn (backpressure), sau đó mới bỏ sự kiện. */
+        BLOCK;
+
+        static DropPolicy fromString(String value) {
+            if (value != null) {
+                for (DropPolicy policy : values()) {
+                    if (policy.name().equalsIgnoreCase(value.trim())) {
+                        return policy;
+                    }
+                }
+            }
+            return DROP_NEWEST;
+        }
+    }
+
+    /**
+     * Nơi nhận các đợt sự kiện để ghi xuống CSDL.
+     */
+    @FunctionalInterface
+    interface Sink {
+        /**
+         * @param batch Các sự kiện theo thứ tự nhận được.
+         * @return true nếu CSDL có thay đổi và giao diện cần được làm mới.
+         */
+        boolean write(List<ApiObservation> batch);
+    }
+
+    /**
+     * Nhận các sự kiện bị bỏ. Có thể được gọi trên luồng proxy (khi submit) hoặc luồng ghi, nên phải nhanh.
+     */
+    @FunctionalInterface
+    interface DropListener {
+        void dropped(ApiObservation observation);
+    }
+
+    private final MontoyaApi api;
+    private final BlockingQueue<ApiObservation> queue;
+    private final DropPolicy dropPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Sink sink;
+    private final Runnable onChange;
+    private final DropListener onDrop;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Các bộ đếm metrics.
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    /**
+     * @param api        Đối tượng MontoyaApi để ghi log.
+     * @param capacity   Số sự kiện tối đa được giữ trong hàng đợi.
+     * @param dropPolicy Chính sách khi hàng đợi đầy.
+     * @param batchSize  Số sự kiện tối đa trong một đợt ghi.
+     * @param flushIntervalMillis Thời gian gom tối đa của một đợt, tính từ sự kiện đầu tiên.
+     * @param sink       Nơi ghi sự kiện (thường là {@link DatabaseManager}).
+     * @param onChange   Được gọi sau khi xử lý xong một đợt sự kiện có làm thay đổi CSDL.
+     * @param onDrop     Được gọi cho mỗi sự kiện bị bỏ.
+     */
+    IngestionPipeline(MontoyaApi api, int capacity, DropPolicy dropPolicy, int batchSize, int flushIntervalMillis,
+                      Sink sink, Runnable onChange, DropListener onDrop) {
+        this.api = api;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.dropPolicy = dropPolicy;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervalMillis));
+        this.sink = sink;
+        this.onChange = onChange;
+        this.onDrop = onDrop;
+        this.writerThread = new Thread(this::drainLoop, "RecheckScan-ingestion");
+        this.writerThread.setDaemon(true);
+    }
+
+    void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Đưa một sự kiện vào hàng đợi. Phương thức này được gọi trên luồng proxy nên phải trả về nhanh.
+     *
+     * @return true nếu sự kiện được nhận, false nếu bị bỏ (và đã được báo cho {@link DropListener}).
+     */
+    boolean submit(ApiObservation observation) {
+        if (!running) {
+            drop(observation);
+            return false;
+        }
+        submitted.incrementAndGet();
+        boolean accepted = switch (dropPolicy) {
+            case DROP_NEWEST -> queue.offer(observation);
+            case DROP_OLDEST -> offerDroppingOldest(observation);
+            case BLOCK -> offerBlocking(observation);
+        };
+        if (!accepted) {
+            drop(observation);
+        } else if (!running && queue.remove(observation)) {
+            // shutdown() chạy xen giữa lần kiểm tra ở trên và lúc đưa vào hàng đợi: luồng ghi có thể đã thoát,
+            // nên sự kiện chưa được lấy ra sẽ nằm lại mãi trong hàng đợi. Nếu luồng ghi đã lấy nó thì vẫn được ghi.
+            drop(observation);
+            return false;
+        }
+        updateHighWaterMark();
+        return accepted;
+    }
+
+    private boolean offerDroppingOldest(ApiObservation observation) {
+        while (!queue.offer(observation)) {
+            ApiObservation evicted = queue.poll();
+            if (evicted != null) {
+                drop(evicted);
+            }
+        }
+        return true;
+    }
+
+    private void drop(ApiObservation observation) {
+        dropped.incrementAndGet();
+        onDrop.dropped(observation);
+    }
+
+    private boolean offerBlocking(ApiObservation observation) {
+        try {
+            return queue.offer(observation, BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void updateHighWaterMark() {
+        long depth = queue.size();
+        long current;
+        while (depth > (current = highWaterMark.get())) {
+            if (highWaterMark.compareAndSet(current, depth)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Vòng lặp của luồng ghi: gom sự kiện thành từng đợt, ghi mỗi đợt xuống CSDL và
+     * báo cho giao diện khi hàng đợi đã được rút cạn (hoặc tối đa mỗi giây một lần khi tải liên tục).
+     */
+    private void drainLoop() {
+        List<ApiObservation> batch = new ArrayList<>(batchSize);
+        boolean pendingChange = false;
+        long lastNotify = System.nanoTime();
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                interrupted = !collectBatch(batch);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                pendingChange |= flush(batch);
+            }
+            if (pendingChange && (queue.isEmpty() || System.nanoTime() - lastNotify >= MAX_NOTIFY_DELAY_NANOS)) {
+                pendingChange = false;
+                lastNotify = System.nanoTime();
+                onChange.run();
+            }
+        }
+        if (interrupted) {
+            // Bị ngắt khi shutdown quá thời gian chờ: bỏ các sự kiện còn lại và thoát.
+            Thread.currentThread().interrupt();
+        }
+        if (pendingChange) {
+            onChange.run();
+        }
+    }
+
+    /**
+     * Gom một đợt sự kiện: chờ sự kiện đầu tiên, sau đó lấy thêm cho đến khi đủ {@code batchSize}
+     * hoặc hết {@code flushIntervalNanos}.
+     *
+     * @return false nếu luồng bị ngắt trong khi đang gom (đợt đã gom vẫn được giữ lại để ghi).
+     */
+    private boolean collectBatch(List<ApiObservation> batch) throws InterruptedException {
+        ApiObservation first = queue.poll(200, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return true;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                break;
+            }
+            ApiObservation next;
+            try {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    /**
+     * Ghi một đợt sự kiện qua {@link Sink} rồi làm rỗng danh sách.
+     *
+     * @return true nếu CSDL có thay đổi.
+     */
+    private boolean flush(List<ApiObservation> batch) {
+        int size = batch.size();
+        try {
+            boolean changed = sink.write(batch);
+            processed.addAndGet(size);
+            batches.incrementAndGet();
+            return changed;
+        } catch (RuntimeException e) {
+            failed.addAndGet(size);
+            api.logging().logToError("Failed to write " + size + " API observations: " + e.getMessage(), e);
+            return false;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Dừng nhận sự kiện mới và chờ luồng ghi xử lý hết các sự kiện còn lại.
+     *
+     * @param timeoutMillis Thời gian chờ tối đa.
+     */
+    void shutdown(long timeoutMillis) {
+        running = false;
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            api.logging().logToError("Ingestion writer did not finish in time, " + queue.size() + " observations discarded.");
+        }
+        // Bỏ các sự kiện còn lại, kể cả những sự kiện được đưa vào sau khi luồng ghi đã thoát.
+        ApiObservation discarded;
+        while ((discarded = queue.poll()) != null) {
+            drop(discarded);
+        }
+    }
+
+    int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * @return Chuỗi tóm tắt các metrics để hiển thị trên tab Settings.
+     */
+    String metricsSummary() {
+        long batchCount = batches.get();
+        long processedCount = processed.get();
+        return String.format("Queue: %d/%d (peak %d) | Processed: %d in %d batches (avg %.1f) | Dropped: %d | Failed: %d",
+                queue.size(), capacity(), highWaterMark.get(), processedCount, batchCount,
+                batchCount == 0 ? 0.0 : (double) processedCount / batchCount, dropped.get(), failed.get());
+    }
+
+    long submittedCount() {
+        return submitted.get();
+    }
+
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    long processedCount() {
+        return processed.get();
+    }
+
+    long failedCount() {
+        return failed.get();
+    }
+
+    long batchCount() {
+        return batches.get();
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+}
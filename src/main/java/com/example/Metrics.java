@@ -0,0 +1,306 @@
+package com.example;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bộ đếm và histogram độ trễ cho từng công đoạn của extension (HTTP handler, CSDL, giao diện).
+ * <p>
+ * Mỗi {@link Stage} ghi số lần, tổng thời gian, thời gian lớn nhất và một histogram theo thang log: mỗi lũy thừa
+ * của 2 được chia làm 4 ô, nên phân vị được ước lượng với sai số dưới 25% mà không phải lưu từng giá trị.
+ * Việc ghi chỉ là vài phép cộng không khóa, đủ rẻ để đặt trên luồng xử lý HTTP.
+ * <p>
+ * Tên công đoạn có dạng {@code nhóm.tên} ({@code handler.extraction}, {@code db.batch}...); thứ tự hiển thị là
+ * thứ tự đăng ký. An toàn luồng.
+ */
+final class Metrics {
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+    private final List<Stage> stageOrder = new CopyOnWriteArrayList<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final List<String> counterOrder = new CopyOnWriteArrayList<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final List<String> gaugeOrder = new CopyOnWriteArrayList<>();
+    private volatile long resetAtMillis = System.currentTimeMillis();
+
+    /**
+     * Trả về công đoạn có tên {@code name}, tạo mới nếu chưa có.
+     */
+    Stage stage(String name) {
+        Stage stage = stages.get(name);
+        if (stage != null) {
+            return stage;
+        }
+        return stages.computeIfAbsent(name, n -> {
+            Stage created = new Stage(n);
+            stageOrder.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Trả về bộ đếm có tên {@code name}, tạo mới nếu chưa có.
+     */
+    LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        return counters.computeIfAbsent(name, n -> {
+            counterOrder.add(n);
+            return new LongAdder();
+        });
+    }
+
+    /**
+     * Đăng ký một giá trị đọc tại thời điểm xuất (độ dài hàng đợi, số sự kiện bị bỏ...).
+     */
+    void gauge(String name, LongSupplier supplier) {
+        if (gauges.put(name, supplier) == null) {
+            gaugeOrder.add(name);
+        }
+    }
+
+    List<Stage.Snapshot> snapshots() {
+        List<Stage.Snapshot> result = new ArrayList<>(stageOrder.size());
+        for (Stage stage : stageOrder) {
+            result.add(stage.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Giá trị hiện tại của các bộ đếm và gauge, theo thứ tự đăng ký.
+     */
+    List<Map.Entry<String, Long>> counterValues() {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        for (String name : counterOrder) {
+            result.add(Map.entry(name, counters.get(name).sum()));
+        }
+        for (String name : gaugeOrder) {
+            long value;
+            try {
+                value = gauges.get(name).getAsLong();
+            } catch (RuntimeException e) {
+                value = -1;
+            }
+            result.add(Map.entry(name, value));
+        }
+        return result;
+    }
+
+    /**
+     * Đưa mọi công đoạn và bộ đếm về 0 (gauge không bị ảnh hưởng).
+     */
+    void reset() {
+        for (Stage stage : stageOrder) {
+            stage.reset();
+        }
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        resetAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Xuất toàn bộ metrics dưới dạng JSON: thời gian tính bằng micro giây, histogram chỉ gồm các ô khác 0
+     * dưới dạng {@code [cận trên (ns), số lần]}.
+     */
+    String toJson() {
+        StringBuilder sb = new StringBuilder(4096);
+        long now = System.currentTimeMillis();
+        sb.append("{\n  \"timestamp\": \"").append(Instant.ofEpochMilli(now)).append("\",\n");
+        sb.append("  \"windowMillis\": ").append(now - resetAtMillis).append(",\n");
+        sb.append("  \"stages\": [");
+        List<Stage.Snapshot> snapshots = snapshots();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Stage.Snapshot s = snapshots.get(i);
+            sb.append(i == 0 ? "\n" : ",\n").append("    {\"name\": ").append(quote(s.name))
+                    .append(", \"count\": ").append(s.count)
+                    .append(", \"totalMillis\": ").append(format(s.totalNanos / 1e6))
+                    .append(", \"meanMicros\": ").append(format(s.meanNanos() / 1e3))
+                    .append(", \"p50Micros\": ").append(format(s.p50Nanos / 1e3))
+                    .append(", \"p90Micros\": ").append(format(s.p90Nanos / 1e3))
+                    .append(", \"p99Micros\": ").append(format(s.p99Nanos / 1e3))
+                    .append(", \"maxMicros\": ").append(format(s.maxNanos / 1e3))
+                    .append(", \"histogram\": [");
+            for (int b = 0; b < s.histogram.length; b++) {
+                sb.append(b == 0 ? "" : ", ").append('[').append(s.histogram[b][0]).append(", ").append(s.histogram[b][1]).append(']');
+            }
+            sb.append("]}");
+        }
+        sb.append(snapshots.isEmpty() ? "],\n" : "\n  ],\n");
+        sb.append("  \"counters\": {");
+        List<Map.Entry<String, Long>> values = counterValues();
+        for (int i = 0; i < values.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n").append("    ").append(quote(values.get(i).getKey())).append(": ").append(values.get(i).getValue());
+        }
+        sb.append(values.isEmpty() ? "}\n" : "\n  }\n").append("}\n");
+        return sb.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Một công đoạn được đo.
+     */
+    static final class Stage {
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        String name() {
+            return name;
+        }
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            count.increment();
+            totalNanos.add(value);
+            maxNanos.accumulate(value);
+            buckets.incrementAndGet(bucketOf(value));
+        }
+
+        /**
+         * Ghi thời gian từ {@code startNanos} (giá trị {@link System#nanoTime()} lúc bắt đầu) tới bây giờ.
+         */
+        void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+        }
+
+        /**
+         * Giá trị lớn nhất thuộc ô {@code bucket}.
+         */
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+            long top = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+            return ((top + 1) << shift) - 1;
+        }
+
+        Snapshot snapshot() {
+            long[] copy = new long[BUCKETS];
+            long total = 0;
+            int nonEmpty = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = buckets.get(i);
+                total += copy[i];
+                if (copy[i] > 0) {
+                    nonEmpty++;
+                }
+            }
+            long max = maxNanos.get();
+            long[][] histogram = new long[nonEmpty][];
+            for (int i = 0, n = 0; i < BUCKETS; i++) {
+                if (copy[i] > 0) {
+                    histogram[n++] = new long[]{Math.min(upperBound(i), max), copy[i]};
+                }
+            }
+            return new Snapshot(name, count.sum(), totalNanos.sum(), max,
+                    percentile(copy, total, 0.50, max), percentile(copy, total, 0.90, max),
+                    percentile(copy, total, 0.99, max), histogram);
+        }
+
+        private static long percentile(long[] counts, long total, double fraction, long max) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Số liệu của một công đoạn tại một thời điểm. Phân vị là cận trên của ô histogram chứa nó.
+         */
+        static final class Snapshot {
+            final String name;
+            final long count;
+            final long totalNanos;
+            final long maxNanos;
+            final long p50Nanos;
+            final long p90Nanos;
+            final long p99Nanos;
+            /**
+             * Các ô khác 0: {@code [cận trên (ns), số lần]}.
+             */
+            final long[][] histogram;
+
+            private Snapshot(String name, long count, long totalNanos, long maxNanos, long p50Nanos, long p90Nanos,
+                             long p99Nanos, long[][] histogram) {
+                this.name = name;
+                this.count = count;
+                this.totalNanos = totalNanos;
+                this.maxNanos = maxNanos;
+                this.p50Nanos = p50Nanos;
+                this.p90Nanos = p90Nanos;
+                this.p99Nanos = p99Nanos;
+                this.histogram = histogram;
+            }
+
+            double meanNanos() {
+                return count == 0 ? 0 : (double) totalNanos / count;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tab "Metrics": bảng độ trễ của từng công đoạn và các bộ đếm trong {@link Metrics}, kèm nút đặt lại
+ * và xuất JSON. {@link #refresh()} được gọi định kỳ trên EDT và bỏ qua khi tab không hiển thị.
+ */
+final class MetricsPanel {
+    private static final String[] STAGE_COLUMNS = {"Stage", "Count", "Mean (ms)", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)", "Total (ms)"};
+    private static final String[] COUNTER_COLUMNS = {"Counter", "Value"};
+
+    private final Metrics metrics;
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final DefaultTableModel stageModel = readOnlyModel(STAGE_COLUMNS);
+    private final DefaultTableModel counterModel = readOnlyModel(COUNTER_COLUMNS);
+    private final JLabel statusLbl = new JLabel(" ");
+
+    MetricsPanel(Metrics metrics) {
+        this.metrics = metrics;
+
+        JTable stageTable = new JTable(stageModel);
+        stageTable.getColumnModel().getColumn(0).setPreferredWidth(220);
+        JTable counterTable = new JTable(counterModel);
+        counterTable.getColumnModel().getColumn(0).setPreferredWidth(220);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(stageTable), new JScrollPane(counterTable));
+        split.setResizeWeight(0.7);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        JButton exportButton = new JButton("Export JSON...");
+        exportButton.addActionListener(e -> exportJson());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(resetButton);
+        buttons.add(exportButton);
+        buttons.add(statusLbl);
+
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        panel.add(buttons, BorderLayout.NORTH);
+        panel.add(split, BorderLayout.CENTER);
+    }
+
+    JPanel component() {
+        return panel;
+    }
+
+    /**
+     * Cập nhật hai bảng từ số liệu hiện tại. Phải được gọi trên EDT.
+     */
+    void refresh() {
+        if (!panel.isShowing()) {
+            return;
+        }
+        List<Metrics.Stage.Snapshot> snapshots = metrics.snapshots();
+        stageModel.setRowCount(snapshots.size());
+        for (int row = 0; row < snapshots.size(); row++) {
+            Metrics.Stage.Snapshot s = snapshots.get(row);
+            stageModel.setValueAt(s.name, row, 0);
+            stageModel.setValueAt(s.count, row, 1);
+            stageModel.setValueAt(millis(s.meanNanos()), row, 2);
+            stageModel.setValueAt(millis(s.p50Nanos), row, 3);
+            stageModel.setValueAt(millis(s.p90Nanos), row, 4);
+            stageModel.setValueAt(millis(s.p99Nanos), row, 5);
+            stageModel.setValueAt(millis(s.maxNanos), row, 6);
+            stageModel.setValueAt(String.format(Locale.ROOT, "%.1f", s.totalNanos / 1e6), row, 7);
+        }
+        List<Map.Entry<String, Long>> counters = metrics.counterValues();
+        counterModel.setRowCount(counters.size());
+        for (int row = 0; row < counters.size(); row++) {
+            counterModel.setValueAt(counters.get(row).getKey(), row, 0);
+            counterModel.setValueAt(counters.get(row).getValue(), row, 1);
+        }
+    }
+
+    private void exportJson() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("recheck-scan-metrics.json"));
+        if (fileChooser.showSaveDialog(panel) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try {
+            Files.writeString(file.toPath(), metrics.toJson(), StandardCharsets.UTF_8);
+            statusLbl.setText("Exported to " + file.getAbsolutePath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(panel, "Failed to export metrics: " + ex.getMessage());
+        }
+    }
+
+    private static String millis(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static DefaultTableModel readOnlyModel(String[] columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
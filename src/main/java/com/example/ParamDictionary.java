@@ -0,0 +1,196 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Từ điển tên tham số -> id số nguyên, dùng chung cho chỉ mục trong bộ nhớ và bảng {@code param_name} trong CSDL.
+ * <p>
+ * Tên tham số lặp lại rất nhiều giữa các API ({@code id}, {@code page}, {@code token}...). Mỗi tên chỉ được lưu
+ * một lần ở đây; tập tham số của từng API là một mảng id đã sắp xếp tăng dần, và các phép hợp/giao/hiệu được
+ * làm bằng cách trộn hai mảng thay vì băm chuỗi.
+ * <p>
+ * Id được cấp tăng dần từ 0 và trùng với {@code param_name.id} trong CSDL: từ điển được nạp từ CSDL khi mở file
+ * (các tên không còn được dùng đã bị xóa trước đó), các tên mới chỉ được cấp id trên luồng ghi, trong đợt ghi đầu
+ * tiên lưu chúng, rồi được ghi xuống cùng đợt đó. Các luồng khác chỉ tra cứu ({@link #lookup}). An toàn luồng.
+ */
+final class ParamDictionary {
+    static final int[] EMPTY_IDS = new int[0];
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    /**
+     * Tên theo id; được thay bằng mảng lớn hơn khi đầy, luôn đọc qua biến volatile.
+     */
+    private volatile String[] names = new String[64];
+    private int nextId;
+
+    /**
+     * Thêm một tên đã có id (khi nạp từ CSDL).
+     */
+    synchronized void put(int id, String name) {
+        ids.put(name, id);
+        ensureCapacity(id + 1);
+        names[id] = name;
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    /**
+     * Trả về id của tên, cấp id mới nếu tên chưa có. Chỉ gọi khi tên sắp được lưu xuống CSDL.
+     */
+    int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            int newId = nextId++;
+            ensureCapacity(newId + 1);
+            names[newId] = name;
+            ids.put(name, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Trả về id của tên, hoặc -1 nếu tên chưa có (không cấp id mới).
+     */
+    int lookup(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    String name(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Số id đã cấp; mọi id hợp lệ đều nhỏ hơn giá trị này.
+     */
+    synchronized int size() {
+        return nextId;
+    }
+
+    /**
+     * Chuyển tập tên thành mảng id đã sắp xếp, cấp id cho các tên mới.
+     */
+    int[] toIds(Set<String> paramNames) {
+        if (paramNames.isEmpty()) {
+            return EMPTY_IDS;
+        }
+        int[] result = new int[paramNames.size()];
+        int n = 0;
+        for (String name : paramNames) {
+            result[n++] = idOf(name);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Chuyển tập tên thành mảng id đã sắp xếp, bỏ qua các tên chưa có trong từ điển.
+     */
+    int[] lookupIds(Set<String> paramNames) {
+        if (paramNames.isEmpty()) {
+            return EMPTY_IDS;
+        }
+        int[] result = new int[paramNames.size()];
+        int n = 0;
+        for (String name : paramNames) {
+            int id = lookup(name);
+            if (id >= 0) {
+                result[n++] = id;
+            }
+        }
+        result = n == result.length ? result : Arrays.copyOf(result, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void ensureCapacity(int capacity) {
+        String[] current = names;
+        if (capacity > current.length) {
+            names = Arrays.copyOf(current, Math.max(capacity, current.length * 2));
+        }
+    }
+
+    /**
+     * Hợp của hai mảng id đã sắp xếp.
+     */
+    static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            out[n++] = a[i++];
+        }
+        while (j < b.length) {
+            out[n++] = b[j++];
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Giao của hai mảng id đã sắp xếp.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return EMPTY_IDS;
+        }
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return n == 0 ? EMPTY_IDS : n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Các id có trong {@code a} nhưng không có trong {@code b} (cả hai đã sắp xếp).
+     */
+    static int[] subtract(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        int[] out = new int[a.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length) {
+            if (j >= b.length || a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return n == 0 ? EMPTY_IDS : n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
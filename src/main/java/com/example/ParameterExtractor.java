@@ -0,0 +1,270 @@
+package com.example;
+
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bước trích xuất tên tham số từ request (query string và body), có giới hạn chi phí.
+ * <p>
+ * Việc phân tích body bằng parser của Burp ({@code request.parameters(...)}) tốn kém với body lớn hoặc JSON
+ * lồng sâu, và chạy ngay trên luồng xử lý HTTP. Lớp này đặt các ngưỡng:
+ * <ul>
+ *     <li>body lớn hơn {@code maxBodyBytes} không được phân tích (chỉ lấy tham số trên URL, và kết quả được đánh dấu
+ *     {@link Result#bodySkipped()} để API không bị coi là không có tham số);</li>
+ *     <li>body JSON lồng sâu hơn {@code maxJsonDepth} cũng bị bỏ qua, được phát hiện bằng một vòng quét byte
+ *     rẻ trước khi giao cho Burp;</li>
+ *     <li>mỗi request ghi nhận tối đa {@code maxParams} tên tham số.</li>
+ * </ul>
+ * Ở chế độ {@code structured}, body JSON/XML được duyệt bằng {@link StructuredBodyWalker} để ghi nhận đường
+ * dẫn đầy đủ ({@code user.name}, {@code items[].id}) thay cho tên phẳng; body sai cú pháp được trả lại cho
+ * parser của Burp.
+ * <p>
+ * Thời gian trích xuất được thống kê theo content type để hiển thị trên tab Settings. Đối tượng bất biến
+ * (trừ bộ đếm) và an toàn luồng.
+ */
+final class ParameterExtractor {
+    static final int DEFAULT_MAX_BODY_KB = 1024;
+    static final int DEFAULT_MAX_JSON_DEPTH = 16;
+    static final int DEFAULT_MAX_PARAMS = 500;
+
+    private final int maxBodyBytes;
+    private final int maxJsonDepth;
+    private final int maxParams;
+    private final boolean async;
+    private final boolean structured;
+    private final Map<ContentType, Stats> stats = new EnumMap<>(ContentType.class);
+
+    /**
+     * @param maxBodyKb    Kích thước body tối đa (KB) được phân tích.
+     * @param maxJsonDepth Độ sâu lồng tối đa của body JSON được phân tích.
+     * @param maxParams    Số tên tham số tối đa ghi nhận cho một request.
+     * @param async        true nếu việc trích xuất được chạy ngoài luồng xử lý HTTP.
+     * @param structured   true để ghi nhận đường dẫn đầy đủ của tham số trong body JSON/XML.
+     */
+    ParameterExtractor(int maxBodyKb, int maxJsonDepth, int maxParams, boolean async, boolean structured) {
+        this.maxBodyBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBodyKb) * 1024L);
+        this.maxJsonDepth = Math.max(1, maxJsonDepth);
+        this.maxParams = Math.max(1, maxParams);
+        this.async = async;
+        this.structured = structured;
+        for (ContentType contentType : ContentType.values()) {
+            stats.put(contentType, new Stats());
+        }
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Kết quả trích xuất của một request.
+     */
+    static final class Result {
+        private final Set<String> params;
+        private final boolean bodySkipped;
+
+        private Result(Set<String> params, boolean bodySkipped) {
+            this.params = params;
+            this.bodySkipped = bodySkipped;
+        }
+
+        /**
+         * Tên các tham số đã trích xuất được.
+         */
+        Set<String> params() {
+            return params;
+        }
+
+        /**
+         * true nếu body có thể chứa tham số nhưng không được phân tích (quá lớn hoặc lồng quá sâu): tập
+         * {@link #params()} khi đó chưa đầy đủ, kể cả khi rỗng.
+         */
+        boolean bodySkipped() {
+            return bodySkipped;
+        }
+    }
+
+    /**
+     * Trích xuất tên của tất cả các tham số trên URL và trong body của request, trong giới hạn đã cấu hình.
+     */
+    Result extract(HttpRequest request) {
+        long start = System.nanoTime();
+        Set<String> names = new HashSet<>();
+
+        // 1. Lấy tham số từ URL (query string)
+        boolean truncated = addNames(names, request.parameters(HttpParameterType.URL));
+
+        // 2. Lấy tham số từ Body nếu có và nằm trong giới hạn
+        ContentType contentType = ContentType.NONE;
+        boolean skipped = false;
+        int bodyLength = request.body().length();
+        if (bodyLength > 0 && !truncated) {
+            contentType = request.contentType();
+            HttpParameterType bodyType;
+            switch (contentType) {
+                case JSON:
+                    bodyType = HttpParameterType.JSON;
+                    break;
+                case URL_ENCODED:
+                case MULTIPART:
+                    bodyType = HttpParameterType.BODY;
+                    break;
+                case XML:
+                    bodyType = HttpParameterType.XML;
+                    break;
+                default:
+                    bodyType = null;
+                    break;
+            }
+            if (bodyType != null) {
+                StructuredBodyWalker.Result result = null;
+                if (bodyLength > maxBodyBytes) {
+                    skipped = true;
+                } else if (structured && (contentType == ContentType.JSON || contentType == ContentType.XML)) {
+                    result = walkStructured(request.body().getBytes(), contentType, names);
+                    skipped = result == StructuredBodyWalker.Result.TOO_DEEP;
+                    truncated = result == StructuredBodyWalker.Result.TRUNCATED;
+                } else if (contentType == ContentType.JSON && exceedsJsonDepth(request.body().getBytes(), maxJsonDepth)) {
+                    skipped = true;
+                }
+                if (!skipped && (result == null || result == StructuredBodyWalker.Result.MALFORMED)) {
+                    truncated = addNames(names, request.parameters(bodyType));
+                }
+            }
+        }
+
+        stats.get(contentType).record(System.nanoTime() - start, skipped, truncated);
+        return new Result(names, skipped);
+    }
+
+    /**
+     * Duyệt body bằng {@link StructuredBodyWalker}. Đường dẫn chỉ được thêm vào kết quả khi body được duyệt
+     * hết hoặc dừng vì đạt giới hạn số tham số, để body lồng quá sâu hay sai cú pháp không để lại kết quả dở.
+     */
+    private StructuredBodyWalker.Result walkStructured(byte[] body, ContentType contentType, Set<String> names) {
+        Set<String> paths = new HashSet<>();
+        int remaining = maxParams - names.size();
+        StructuredBodyWalker.Result result = contentType == ContentType.JSON
+                ? StructuredBodyWalker.walkJson(body, maxJsonDepth, remaining, paths)
+                : StructuredBodyWalker.walkXml(body, maxJsonDepth, remaining, paths);
+        if (result == StructuredBodyWalker.Result.OK || result == StructuredBodyWalker.Result.TRUNCATED) {
+            names.addAll(paths);
+        }
+        return result;
+    }
+
+    /**
+     * Thêm tên tham số vào tập kết quả, dừng khi đạt {@code maxParams}.
+     *
+     * @return true nếu tập kết quả đã chạm giới hạn.
+     */
+    private boolean addNames(Set<String> names, List<ParsedHttpParameter> params) {
+        if (params != null) {
+            for (ParsedHttpParameter param : params) {
+                if (names.size() >= maxParams) {
+                    return true;
+                }
+                names.add(param.name());
+            }
+        }
+        return names.size() >= maxParams;
+    }
+
+    /**
+     * Quét nhanh body JSON để xem độ sâu lồng của object/array có vượt quá {@code maxDepth} hay không.
+     * Bỏ qua các ký tự ngoặc nằm trong chuỗi.
+     */
+    static boolean exceedsJsonDepth(byte[] body, int maxDepth) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < body.length; i++) {
+            byte b = body[i];
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                if (++depth > maxDepth) {
+                    return true;
+                }
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tóm tắt thời gian trích xuất theo content type (chỉ các loại đã gặp) để hiển thị trên tab Settings.
+     */
+    String metricsSummary() {
+        StringBuilder sb = new StringBuilder("Extraction:");
+        boolean any = false;
+        for (Map.Entry<ContentType, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long count = s.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            sb.append(any ? " | " : " ").append(entry.getKey() == ContentType.NONE ? "NO BODY" : entry.getKey().name())
+                    .append(String.format(" %d req, avg %.2f ms, max %.2f ms", count,
+                            s.nanos.sum() / 1_000_000.0 / count, s.maxNanos.get() / 1_000_000.0));
+            long skipped = s.skipped.sum();
+            long truncated = s.truncated.sum();
+            if (skipped > 0) {
+                sb.append(", ").append(skipped).append(" skipped");
+            }
+            if (truncated > 0) {
+                sb.append(", ").append(truncated).append(" truncated");
+            }
+            any = true;
+        }
+        if (!any) {
+            sb.append(" no requests yet");
+        }
+        if (structured) {
+            sb.append(" (structured)");
+        }
+        if (async) {
+            sb.append(" (async)");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bộ đếm của một content type.
+     */
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder truncated = new LongAdder();
+
+        void record(long elapsedNanos, boolean wasSkipped, boolean wasTruncated) {
+            count.increment();
+            nanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            if (wasSkipped) {
+                skipped.increment();
+            }
+            if (wasTruncated) {
+                truncated.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bộ nhớ đệm LRU có giới hạn, an toàn luồng, ánh xạ path gốc -> path đã chuẩn hóa.
+ * <p>
+ * Khóa được chia vào nhiều phân đoạn (stripe) theo hash, mỗi phân đoạn là một {@link LinkedHashMap} theo
+ * thứ tự truy cập với khóa riêng, nên các luồng proxy hiếm khi tranh chấp cùng một khóa. Bộ đếm hit/miss
+ * dùng {@link LongAdder} để không trở thành điểm nghẽn.
+ */
+final class PathCache {
+    static final int DEFAULT_CAPACITY = 10_000;
+    /**
+     * Path dài hơn ngưỡng này không được lưu đệm (thường là path rác/duy nhất, tốn bộ nhớ mà không được dùng lại).
+     */
+    private static final int MAX_KEY_LENGTH = 1024;
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PathCache(int capacity) {
+        this.capacity = Math.max(STRIPES, capacity);
+        int perStripe = this.capacity / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Trả về giá trị đã lưu cho {@code path}, hoặc tính bằng {@code compute} rồi lưu lại.
+     * Hàm tính được gọi ngoài khóa nên hai luồng có thể cùng tính một path; kết quả như nhau nên không sao.
+     */
+    String get(String path, UnaryOperator<String> compute) {
+        if (path.length() > MAX_KEY_LENGTH) {
+            misses.increment();
+            return compute.apply(path);
+        }
+        Stripe stripe = stripes[(spread(path.hashCode())) & (STRIPES - 1)];
+        String value;
+        synchronized (stripe) {
+            value = stripe.get(path);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = compute.apply(path);
+        synchronized (stripe) {
+            stripe.put(path, value);
+        }
+        return value;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Tóm tắt metrics để hiển thị trên tab Settings.
+     */
+    String metricsSummary() {
+        long hitCount = hits();
+        long total = hitCount + misses();
+        return String.format("Path Cache: %d/%d entries | Hits: %d | Misses: %d | Hit Rate: %.1f%%",
+                size(), capacity, hitCount, total - hitCount, total == 0 ? 0.0 : 100.0 * hitCount / total);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Một phân đoạn LRU: LinkedHashMap theo thứ tự truy cập, tự bỏ phần tử cũ nhất khi vượt dung lượng.
+     */
+    private static final class Stripe extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bộ chuẩn hóa URL path đã biên dịch từ danh sách {@link PathParameterRule}.
+ * <p>
+ * Path được quét theo vị trí dấu '/' thay vì {@code String.split}; mỗi segment được thử lần lượt với các
+ * rule theo đúng thứ tự cấu hình, rule khớp đầu tiên thắng. Các rule {@code regex:} liền kề nhau được gộp
+ * thành một Pattern duy nhất dạng {@code (r1)|(r2)|...} nên mỗi segment chỉ chạy regex một lần cho cả nhóm;
+ * nhánh khớp được xác định qua nhóm bắt. Nếu path không có segment nào khớp, chính chuỗi gốc được trả về
+ * mà không cấp phát gì thêm. Đối tượng bất biến và an toàn luồng.
+ * <p>
+ * Kết quả được lưu trong một {@link PathCache} riêng của mỗi bộ chuẩn hóa: khi người dùng đổi rule, một
+ * bộ chuẩn hóa mới (với bộ nhớ đệm rỗng) được tạo nên không cần xóa đệm thủ công.
+ */
+final class PathNormalizer {
+    static final PathNormalizer EMPTY = new PathNormalizer(Collections.emptyList());
+
+    /**
+     * Một bước kiểm tra segment: trả về placeholder nếu khớp, null nếu không.
+     */
+    private interface SegmentMatcher {
+        String placeholderFor(String path, int start, int end);
+    }
+
+    private final SegmentMatcher[] matchers;
+    private final PathCache cache = new PathCache(PathCache.DEFAULT_CAPACITY);
+
+    private PathNormalizer(List<PathParameterRule> rules) {
+        List<SegmentMatcher> steps = new ArrayList<>();
+        List<PathParameterRule> regexRun = new ArrayList<>();
+        for (PathParameterRule rule : rules) {
+            if (rule.type() == PathParameterRule.Type.REGEX) {
+                regexRun.add(rule);
+                continue;
+            }
+            flushRegexRun(regexRun, steps);
+            steps.add((path, start, end) -> rule.matches(path, start, end) ? rule.placeholder() : null);
+        }
+        flushRegexRun(regexRun, steps);
+        this.matchers = steps.toArray(new SegmentMatcher[0]);
+    }
+
+    static PathNormalizer compile(List<PathParameterRule> rules) {
+        return rules == null || rules.isEmpty() ? EMPTY : new PathNormalizer(rules);
+    }
+
+    boolean hasRules() {
+        return matchers.length > 0;
+    }
+
+    PathCache cache() {
+        return cache;
+    }
+
+    /**
+     * Chuẩn hóa các segment động trong path.
+     * Ví dụ: /api/report/1684050854912458752/list -> /api/report/{id}/list.
+     */
+    String normalize(String path) {
+        if (path == null || matchers.length == 0 || path.isBlank()) {
+            return path;
+        }
+        return cache.get(path, this::normalizeUncached);
+    }
+
+    /**
+     * Chuẩn hóa path mà không qua bộ nhớ đệm.
+     */
+    String normalizeUncached(String path) {
+        StringBuilder out = null;
+        int copied = 0;
+        int length = path.length();
+        int start = 0;
+        while (start <= length) {
+            int slash = path.indexOf('/', start);
+            int end = slash < 0 ? length : slash;
+            if (end > start) {
+                String placeholder = placeholderFor(path, start, end);
+                if (placeholder != null) {
+                    if (out == null) {
+                        out = new StringBuilder(length + 16);
+                    }
+                    out.append(path, copied, start).append(placeholder);
+                    copied = end;
+                }
+            }
+            if (slash < 0) {
+                break;
+            }
+            start = slash + 1;
+        }
+        if (out == null) {
+            return path;
+        }
+        return out.append(path, copied, length).toString();
+    }
+
+    private String placeholderFor(String path, int start, int end) {
+        for (SegmentMatcher matcher : matchers) {
+            String placeholder = matcher.placeholderFor(path, start, end);
+            if (placeholder != null) {
+                return placeholder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gộp một dãy rule regex liền kề thành một bước kiểm tra.
+     */
+    private static void flushRegexRun(List<PathParameterRule> regexRun, List<SegmentMatcher> steps) {
+        if (regexRun.isEmpty()) {
+            return;
+        }
+        SegmentMatcher combined = regexRun.size() > 1 ? combine(regexRun) : null;
+        if (combined != null) {
+            steps.add(combined);
+        } else {
+            for (PathParameterRule rule : regexRun) {
+                steps.add((path, start, end) -> rule.matches(path, start, end) ? rule.placeholder() : null);
+            }
+        }
+        regexRun.clear();
+    }
+
+    /**
+     * Ghép các regex thành {@code (r1)|(r2)|...}. Phép thay thế (alternation) của Java thử các nhánh từ trái
+     * sang phải, nên với {@link Matcher#matches()} nhánh khớp được chính là rule khớp đầu tiên theo thứ tự.
+     *
+     * @return null nếu không gộp được an toàn (regex có tham chiếu ngược theo số thứ tự nhóm hoặc
+     * Pattern gộp không biên dịch được); khi đó các rule được kiểm tra riêng lẻ.
+     */
+    private static SegmentMatcher combine(List<PathParameterRule> regexRules) {
+        StringBuilder combined = new StringBuilder();
+        int[] groupOfRule = new int[regexRules.size()];
+        String[] placeholders = new String[regexRules.size()];
+        int group = 1;
+        for (int i = 0; i < regexRules.size(); i++) {
+            Pattern pattern = regexRules.get(i).pattern();
+            String source = pattern.pattern();
+            if (pattern.flags() != 0 || hasNumberedBackReference(source)) {
+                return null;
+            }
+            if (i > 0) {
+                combined.append('|');
+            }
+            combined.append('(').append(source).append(')');
+            groupOfRule[i] = group;
+            placeholders[i] = regexRules.get(i).placeholder();
+            group += 1 + pattern.matcher("").groupCount();
+        }
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(combined.toString());
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+        ThreadLocal<Matcher> matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        return (path, start, end) -> {
+            Matcher m = matcher.get();
+            m.reset(path);
+            m.region(start, end);
+            String placeholder = null;
+            if (m.matches()) {
+                for (int i = 0; i < groupOfRule.length; i++) {
+                    if (m.start(groupOfRule[i]) >= 0) {
+                        placeholder = placeholders[i];
+                        break;
+                    }
+                }
+            }
+            // Không giữ tham chiếu tới path cuối cùng trong ThreadLocal.
+            m.reset("");
+            return placeholder;
+        };
+    }
+
+    private static boolean hasNumberedBackReference(String regex) {
+        for (int i = 0; i + 1 < regex.length(); i++) {
+            if (regex.charAt(i) == '\\') {
+                char next = regex.charAt(i + 1);
+                if (next >= '1' && next <= '9') {
+                    return true;
+                }
+                // Bỏ qua ký tự đã được escape, ví dụ "\\\\1" là dấu '\' rồi số 1.
+                i++;
+            }
+        }
+        return false;
+    }
+}
@@ -1,21 +1,133 @@
 package com.example;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Một rule chuẩn hóa segment động trong URL path, ví dụ {@code {id}=number}.
+ * <p>
+ * Các kiểu dựng sẵn (number, hex, uuid, alnum) được kiểm tra bằng vòng quét ký tự viết tay thay vì
+ * {@code java.util.regex}; chỉ rule {@code regex:} mới dùng {@link Pattern}. Mọi phép kiểm tra đều làm
+ * việc trên một đoạn [start, end) của path gốc nên không cần cắt chuỗi segment.
+ */
 class PathParameterRule {
+    /**
+     * Kiểu của rule.
+     */
+    enum Type {
+        DIGITS, HEX, UUID, ALNUM, REGEX
+    }
+
+    private static final int UUID_LENGTH = 36;
+
     private final String placeholder;
+    private final Type type;
+    /**
+     * Độ dài bắt buộc của segment, 0 nghĩa là độ dài bất kỳ (ít nhất 1 ký tự).
+     */
+    private final int length;
     private final Pattern pattern;
+    /**
+     * Matcher dùng lại cho mỗi luồng, tránh tạo Matcher mới cho mỗi segment.
+     */
+    private final ThreadLocal<Matcher> matcher;
 
-    PathParameterRule(String placeholder, Pattern pattern) {
+    private PathParameterRule(String placeholder, Type type, int length, Pattern pattern) {
         this.placeholder = placeholder;
+        this.type = type;
+        this.length = length;
         this.pattern = pattern;
+        this.matcher = pattern == null ? null : ThreadLocal.withInitial(() -> pattern.matcher(""));
+    }
+
+    /**
+     * Tạo rule cho một kiểu dựng sẵn.
+     *
+     * @param length Độ dài bắt buộc, 0 nếu không giới hạn (bị bỏ qua với {@link Type#UUID}).
+     */
+    static PathParameterRule builtIn(String placeholder, Type type, int length) {
+        if (type == Type.REGEX) {
+            throw new IllegalArgumentException("Use PathParameterRule.regex for regex rules");
+        }
+        return new PathParameterRule(placeholder, type, type == Type.UUID ? UUID_LENGTH : length, null);
+    }
+
+    static PathParameterRule regex(String placeholder, Pattern pattern) {
+        return new PathParameterRule(placeholder, Type.REGEX, 0, pattern);
     }
 
-    boolean matches(String pathSegment) {
-        return pattern.matcher(pathSegment).matches();
+    /**
+     * Kiểm tra đoạn [start, end) của {@code text} có khớp toàn bộ với rule hay không.
+     */
+    boolean matches(CharSequence text, int start, int end) {
+        int n = end - start;
+        if (n <= 0 || (length > 0 && n != length)) {
+            return false;
+        }
+        switch (type) {
+            case DIGITS:
+                for (int i = start; i < end; i++) {
+                    char c = text.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return false;
+                    }
+                }
+                return true;
+            case HEX:
+                for (int i = start; i < end; i++) {
+                    if (!isHex(text.charAt(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case ALNUM:
+                for (int i = start; i < end; i++) {
+                    char c = text.charAt(i);
+                    if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                        return false;
+                    }
+                }
+                return true;
+            case UUID:
+                // 8-4-4-4-12 ký tự hex, dấu '-' ở các vị trí 8, 13, 18, 23.
+                for (int i = 0; i < UUID_LENGTH; i++) {
+                    char c = text.charAt(start + i);
+                    if (i == 8 || i == 13 || i == 18 || i == 23) {
+                        if (c != '-') {
+                            return false;
+                        }
+                    } else if (!isHex(c)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                Matcher m = matcher.get();
+                m.reset(text);
+                m.region(start, end);
+                boolean matched = m.matches();
+                // Không giữ tham chiếu tới path cuối cùng trong ThreadLocal.
+                m.reset("");
+                return matched;
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
     }
 
     String placeholder() {
         return placeholder;
     }
+
+    Type type() {
+        return type;
+    }
+
+    /**
+     * @return Pattern của rule {@code regex:}, null với các kiểu dựng sẵn.
+     */
+    Pattern pattern() {
+        return pattern;
+    }
 }
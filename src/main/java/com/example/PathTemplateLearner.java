@@ -0,0 +1,278 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Tự học các path parameter từ độ đa dạng của các path quan sát được, bổ sung cho rule viết tay.
+ * <p>
+ * Mỗi host có một cây segment (trie): mỗi nút là một vị trí trong path, các nhánh con là giá trị segment
+ * tại vị trí tiếp theo. Segment có chứa chữ số được coi là "ứng viên động"; khi một vị trí có từ
+ * {@code threshold} giá trị ứng viên khác nhau trở lên, các nhánh đó được gộp thành một nhánh
+ * {@value #PLACEHOLDER} duy nhất và mọi segment ứng viên sau này tại vị trí đó được thay bằng placeholder.
+ * Segment chỉ gồm chữ cái (tên tài nguyên như {@code users}, {@code orders}) luôn được giữ nguyên.
+ * <p>
+ * Chế độ {@link Mode#SUGGEST} chỉ học và báo template tìm được; {@link Mode#AUTO} áp dụng luôn vào path
+ * được ghi nhận, giữ số dòng trong {@code api_log} có giới hạn với các target REST có id trong path.
+ * Template đã áp dụng được lưu lại trong CSDL dưới dạng path có {@value #PLACEHOLDER}, nên khi nạp lại
+ * từ CSDL cây được khôi phục mà không cần lưu riêng.
+ */
+final class PathTemplateLearner {
+    /**
+     * Chế độ học path parameter.
+     */
+    enum Mode {
+        OFF, SUGGEST, AUTO;
+
+        static Mode fromString(String value) {
+            for (Mode mode : values()) {
+                if (value != null && mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            return OFF;
+        }
+    }
+
+    static final String PLACEHOLDER = "{param}";
+    static final int DEFAULT_THRESHOLD = 20;
+    /**
+     * Số nhánh cố định tối đa của một nút; vượt quá thì không học thêm ở nhánh đó để giới hạn bộ nhớ.
+     */
+    private static final int MAX_LITERAL_CHILDREN = 5_000;
+
+    private final Mode mode;
+    private final int threshold;
+    private final BiConsumer<String, String> onLearned;
+    private final ConcurrentHashMap<String, Node> roots = new ConcurrentHashMap<>();
+
+    /**
+     * @param mode      Chế độ học.
+     * @param threshold Số giá trị ứng viên khác nhau tại một vị trí để vị trí đó được coi là tham số.
+     * @param onLearned Nhận (host, path-template) mỗi khi học được một template mới (có thể null). Được gọi trên
+     *                  luồng gọi {@link #observe} khi đang giữ khóa của cây, nên phải nhanh.
+     */
+    PathTemplateLearner(Mode mode, int threshold, BiConsumer<String, String> onLearned) {
+        this.mode = mode;
+        this.threshold = Math.max(2, threshold);
+        this.onLearned = onLearned;
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * Ghi nhận một path quan sát được và trả về path nên được lưu.
+     *
+     * @return Path đã thay placeholder ở chế độ {@link Mode#AUTO}; path gốc ở các chế độ khác.
+     */
+    String observe(String host, String path) {
+        if (mode == Mode.OFF || host == null || path == null) {
+            return path;
+        }
+        Node root = roots.computeIfAbsent(host, h -> new Node());
+        String template;
+        synchronized (root) {
+            template = walk(root, host, path, true);
+        }
+        return mode == Mode.AUTO ? template : path;
+    }
+
+    /**
+     * Áp dụng các template đã học cho một path mà không học thêm (dùng khi chuẩn hóa dữ liệu đã lưu).
+     *
+     * @return Path đã thay placeholder ở chế độ {@link Mode#AUTO}; path gốc ở các chế độ khác.
+     */
+    String templateFor(String host, String path) {
+        if (mode != Mode.AUTO || host == null || path == null) {
+            return path;
+        }
+        Node root = roots.get(host);
+        if (root == null) {
+            return path;
+        }
+        synchronized (root) {
+            return walk(root, host, path, false);
+        }
+    }
+
+    /**
+     * Đi theo path trên cây, (tùy chọn) thêm nhánh mới, và dựng path với các segment động đã được thay.
+     */
+    private String walk(Node root, String host, String path, boolean learn) {
+        StringBuilder out = null;
+        int copied = 0;
+        int length = path.length();
+        Node node = root;
+        int start = 0;
+        while (node != null) {
+            int slash = path.indexOf('/', start);
+            int end = slash < 0 ? length : slash;
+            String segment = path.substring(start, end);
+            Node next;
+            if (segment.equals(PLACEHOLDER)) {
+                // Path đã mang template (nạp lại từ CSDL): vị trí này chắc chắn là tham số.
+                next = learn ? node.collapse(this, host, path.substring(0, start)) : node.wildcard;
+            } else if (!isCandidate(segment)) {
+                next = node.literals == null ? null : node.literals.get(segment);
+                if (next == null && learn) {
+                    next = node.addLiteral(segment);
+                }
+            } else if (node.wildcard != null) {
+                if (out == null) {
+                    out = new StringBuilder(length);
+                }
+                out.append(path, copied, start).append(PLACEHOLDER);
+                copied = end;
+                next = node.wildcard;
+            } else {
+                next = node.candidates == null ? null : node.candidates.get(segment);
+                if (next == null && learn) {
+                    next = node.addCandidate(segment);
+                    if (node.candidates.size() >= threshold) {
+                        String prefix = (out == null ? path.substring(0, start) : out + path.substring(copied, start));
+                        next = node.collapse(this, host, prefix);
+                        if (out == null) {
+                            out = new StringBuilder(length);
+                        }
+                        out.append(path, copied, start).append(PLACEHOLDER);
+                        copied = end;
+                    }
+                }
+            }
+            if (slash < 0) {
+                break;
+            }
+            node = next;
+            start = slash + 1;
+        }
+        if (out == null) {
+            return path;
+        }
+        return out.append(path, copied, length).toString();
+    }
+
+    /**
+     * Segment có chứa chữ số (id, mã băm, uuid...) là ứng viên tham số.
+     */
+    private static boolean isCandidate(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void learned(String host, String templatePrefix) {
+        String template = templatePrefix + PLACEHOLDER;
+        if (onLearned != null) {
+            onLearned.accept(host, template);
+        }
+    }
+
+    /**
+     * Một vị trí trong cây segment. Các map được tạo khi cần để nút lá không tốn bộ nhớ.
+     */
+    private static final class Node {
+        private Map<String, Node> literals;
+        private Map<String, Node> candidates;
+        /**
+         * Nhánh tham số, khác null khi vị trí này đã được học là tham số.
+         */
+        private Node wildcard;
+
+        Node addLiteral(String segment) {
+            if (literals == null) {
+                literals = new HashMap<>();
+            }
+            if (literals.size() >= MAX_LITERAL_CHILDREN) {
+                return null;
+            }
+            Node child = new Node();
+            literals.put(segment, child);
+            return child;
+        }
+
+        Node addCandidate(String segment) {
+            if (candidates == null) {
+                candidates = new HashMap<>();
+            }
+            Node child = new Node();
+            candidates.put(segment, child);
+            return child;
+        }
+
+        /**
+         * Gộp mọi nhánh ứng viên vào nhánh tham số và trả về nhánh đó.
+         */
+        Node collapse(PathTemplateLearner learner, String host, String templatePrefix) {
+            if (wildcard == null) {
+                wildcard = new Node();
+                learner.learned(host, templatePrefix);
+            }
+            if (candidates != null) {
+                for (Node child : candidates.values()) {
+                    wildcard.mergeFrom(child);
+                }
+                candidates = null;
+            }
+            return wildcard;
+        }
+
+        /**
+         * Gộp cây con {@code other} vào nút này (không học template mới trong lúc gộp).
+         */
+        void mergeFrom(Node other) {
+            if (other.literals != null) {
+                for (Map.Entry<String, Node> entry : other.literals.entrySet()) {
+                    if (literals == null) {
+                        literals = new HashMap<>();
+                    }
+                    Node existing = literals.putIfAbsent(entry.getKey(), entry.getValue());
+                    if (existing != null) {
+                        existing.mergeFrom(entry.getValue());
+                    }
+                }
+            }
+            if (other.wildcard != null) {
+                if (wildcard == null) {
+                    wildcard = other.wildcard;
+                } else {
+                    wildcard.mergeFrom(other.wildcard);
+                }
+            }
+            if (other.candidates != null) {
+                if (wildcard != null) {
+                    for (Node child : other.candidates.values()) {
+                        wildcard.mergeFrom(child);
+                    }
+                } else {
+                    for (Map.Entry<String, Node> entry : other.candidates.entrySet()) {
+                        if (candidates == null) {
+                            candidates = new HashMap<>();
+                        }
+                        Node existing = candidates.putIfAbsent(entry.getKey(), entry.getValue());
+                        if (existing != null) {
+                            existing.mergeFrom(entry.getValue());
+                        }
+                    }
+                }
+            }
+            if (wildcard != null && candidates != null) {
+                for (Node child : candidates.values()) {
+                    wildcard.mergeFrom(child);
+                }
+                candidates = null;
+            }
+        }
+    }
+}
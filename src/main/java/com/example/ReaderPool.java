@@ -0,0 +1,108 @@
+package com.example;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Một nhóm nhỏ các kết nối SQLite chỉ-đọc, dùng chung cho các truy vấn từ giao diện và luồng proxy.
+ * <p>
+ * Ở chế độ WAL, người đọc không chặn người ghi: mỗi kết nối đọc thấy bản chụp đã commit gần nhất
+ * trong khi kết nối ghi của {@link DatabaseManager} vẫn tiếp tục ghi các đợt sự kiện.
+ */
+final class ReaderPool {
+    private final BlockingQueue<StatementCache> idle;
+    private volatile boolean closed;
+
+    /**
+     * Mở {@code size} kết nối chỉ-đọc tới cùng một file CSDL.
+     *
+     * @param dbPath Đường dẫn tới file CSDL (phải đã tồn tại và đã có bảng).
+     * @param tuning Các PRAGMA theo từng kết nối (cache, mmap, busy timeout...).
+     * @param size   Số kết nối trong nhóm.
+     * @param hits   Bộ đếm dùng lại câu lệnh đã biên dịch, chung cho mọi kết nối (xem {@link StatementCache}).
+     * @param misses Bộ đếm biên dịch câu lệnh mới.
+     * @throws SQLException Nếu không mở được kết nối; các kết nối đã mở sẽ được đóng lại.
+     */
+    ReaderPool(String dbPath, SqliteTuning tuning, int size, LongAdder hits, LongAdder misses) throws SQLException {
+        int count = Math.max(1, size);
+        this.idle = new ArrayBlockingQueue<>(count);
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        List<Connection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath, config.toProperties());
+                opened.add(connection);
+                tuning.applyToReader(connection);
+            }
+        } catch (SQLException e) {
+            opened.forEach(ReaderPool::closeQuietly);
+            throw e;
+        }
+        for (Connection connection : opened) {
+            idle.add(new StatementCache(connection, hits, misses));
+        }
+    }
+
+    /**
+     * Mượn một kết nối, chờ tối đa {@code timeoutMillis} nếu tất cả đang bận.
+     *
+     * @return Kết nối chỉ-đọc (cùng các câu lệnh đã lưu đệm của nó), hoặc null nếu nhóm đã đóng hoặc hết thời gian chờ.
+     */
+    StatementCache borrow(long timeoutMillis) {
+        if (closed) {
+            return null;
+        }
+        try {
+            return idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Trả kết nối về nhóm. Nếu nhóm đã bị đóng trong lúc kết nối đang được mượn, kết nối sẽ được đóng luôn.
+     */
+    synchronized void release(StatementCache reader) {
+        if (closed || !idle.offer(reader)) {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Đóng nhóm: các kết nối đang rảnh được đóng ngay, các kết nối đang được mượn sẽ được đóng khi trả về.
+     */
+    synchronized void close() {
+        closed = true;
+        StatementCache reader;
+        while ((reader = idle.poll()) != null) {
+            closeQuietly(reader);
+        }
+    }
+
+    private static void closeQuietly(StatementCache reader) {
+        try {
+            reader.close();
+        } catch (SQLException ignored) {
+            // Đang đóng, không còn gì để xử lý.
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Đang đóng, không còn gì để xử lý.
+        }
+    }
+}
@@ -3,10 +3,8 @@ package com.example;
 import burp.api.montoya.*;
 import burp.api.montoya.core.HighlightColor;
 import burp.api.montoya.core.ToolType;
-import burp.api.montoya.http.message.ContentType;
 import burp.api.montoya.extension.ExtensionUnloadingHandler;
 import burp.api.montoya.http.handler.*;
-import burp.api.montoya.http.message.params.*;
 import burp.api.montoya.http.message.requests.HttpRequest;
 
 import javax.swing.*;
@@ -21,6 +19,14 @@ import java.io.StringWriter;
 import java.util.*;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
@@ -43,6 +49,41 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
      * Đối tượng quản lý cơ sở dữ liệu, đóng gói tất cả các thao tác với SQLite.
      */
     private DatabaseManager databaseManager;
+    /**
+     * Hàng đợi ghi bất đồng bộ: luồng proxy chỉ đẩy sự kiện vào, một luồng ghi duy nhất ghi xuống CSDL.
+     */
+    private volatile IngestionPipeline ingestionPipeline;
+    /**
+     * Các sự kiện đến trong lúc {@link #restartDatabase()} đang chạy, được giữ lại (chưa áp dụng vào chỉ mục)
+     * và phát lại sau khi CSDL mới sẵn sàng. null khi không khởi động lại.
+     */
+    private volatile List<ApiObservation> restartBuffer;
+    /**
+     * Số sự kiện bị bỏ vì {@link #restartBuffer} đã đầy; chỉ truy cập khi giữ khóa của buffer.
+     */
+    private int restartBufferDropped;
+    /**
+     * Chỉ mục trong bộ nhớ của các API, phục vụ việc đọc trạng thái trên luồng proxy mà không cần truy vấn CSDL.
+     */
+    private final EndpointIndex endpointIndex = new EndpointIndex();
+    /**
+     * Số liệu độ trễ của từng công đoạn, hiển thị trên tab Metrics. Các công đoạn của handler được tạo sẵn
+     * ở đây để luồng proxy không phải tra theo tên.
+     */
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Stage handlerTotalStage = metrics.stage("handler.total");
+    private final Metrics.Stage exclusionStage = metrics.stage("handler.exclusion");
+    private final Metrics.Stage normalizationStage = metrics.stage("handler.normalization");
+    private final Metrics.Stage extractionStage = metrics.stage("handler.extraction");
+    private final Metrics.Stage recordStage = metrics.stage("handler.record");
+    private final LongAdder excludedStatusCount = metrics.counter("handler.excluded.status_code");
+    private final LongAdder excludedToolCount = metrics.counter("handler.excluded.method_or_tool");
+    private final LongAdder excludedScopeCount = metrics.counter("handler.excluded.out_of_scope");
+    private final LongAdder excludedExtensionCount = metrics.counter("handler.excluded.extension");
+    private final Metrics.Stage applyRowsStage = metrics.stage("ui.applyRows");
+    private final Metrics.Stage reloadStage = metrics.stage("ui.reload");
+    private final LongAdder appliedRowCount = metrics.counter("ui.rowsApplied");
+    private MetricsPanel metricsPanel;
 
     // Các biến lưu trữ cài đặt của người dùng, được tải từ tệp cấu hình.
     private String exclude_extensions;
@@ -52,18 +93,70 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
     private boolean highlightEnabled = false;
     private boolean noteEnabled = false;
     private boolean autoBypassNoParam = false;
-    private List<PathParameterRule> compiledPathParameterRules = new ArrayList<>();
+    private int ingestionQueueCapacity = IngestionPipeline.DEFAULT_CAPACITY;
+    private IngestionPipeline.DropPolicy ingestionDropPolicy = IngestionPipeline.DropPolicy.DROP_NEWEST;
+    private int ingestionBatchSize = IngestionPipeline.DEFAULT_BATCH_SIZE;
+    private int ingestionFlushIntervalMillis = IngestionPipeline.DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private SqliteTuning sqliteTuning = SqliteTuning.DEFAULT;
+    /**
+     * Bộ chuẩn hóa path đã biên dịch từ {@code path_parameter_rules}, thay thế nguyên khối khi cài đặt thay đổi.
+     */
+    private volatile PathNormalizer pathNormalizer = PathNormalizer.EMPTY;
+    private PathTemplateLearner.Mode pathLearningMode = PathTemplateLearner.Mode.OFF;
+    private int pathLearningThreshold = PathTemplateLearner.DEFAULT_THRESHOLD;
+    /**
+     * Bộ tự học path parameter, được dựng lại (và nạp lại từ chỉ mục) mỗi khi CSDL được mở lại.
+     */
+    private volatile PathTemplateLearner pathTemplateLearner = new PathTemplateLearner(PathTemplateLearner.Mode.OFF, PathTemplateLearner.DEFAULT_THRESHOLD, null);
+    /**
+     * Các host vừa học được template mới ở chế độ AUTO; luồng ghi gộp các dòng đã lưu của chúng sau đợt kế tiếp.
+     */
+    private final Set<String> hostsWithNewTemplates = ConcurrentHashMap.newKeySet();
+    /**
+     * Bộ lọc loại trừ đã biên dịch từ {@code exclude_extensions} và {@code exclude_status_code};
+     * được thay thế nguyên khối khi cài đặt thay đổi nên luồng proxy luôn đọc được một bộ lọc nhất quán.
+     */
+    private volatile RequestFilter requestFilter = RequestFilter.EMPTY;
+    private int extractionMaxBodyKb = ParameterExtractor.DEFAULT_MAX_BODY_KB;
+    private int extractionMaxJsonDepth = ParameterExtractor.DEFAULT_MAX_JSON_DEPTH;
+    private int extractionMaxParams = ParameterExtractor.DEFAULT_MAX_PARAMS;
+    private boolean extractionAsync = false;
+    private boolean extractionStructured = false;
+    /**
+     * Bước trích xuất tham số với các giới hạn hiện tại, được thay thế nguyên khối khi cài đặt thay đổi.
+     */
+    private volatile ParameterExtractor parameterExtractor = new ParameterExtractor(ParameterExtractor.DEFAULT_MAX_BODY_KB,
+            ParameterExtractor.DEFAULT_MAX_JSON_DEPTH, ParameterExtractor.DEFAULT_MAX_PARAMS, false, false);
+    /**
+     * Các luồng trích xuất tham số ngoài luồng xử lý HTTP; null khi chế độ bất đồng bộ tắt.
+     */
+    private volatile ExecutorService extractionExecutor;
 
     /**
      * Model cho JTable, chứa dữ liệu API được hiển thị trên giao diện.
      */
-    private DefaultTableModel tableModel;
+    private ApiTableModel tableModel;
     /**
-     * Một Map quan trọng để ánh xạ chỉ số dòng hiển thị trên JTable (có thể thay đổi do sắp xếp)
-     * sang ID duy nhất trong cơ sở dữ liệu (không đổi).
-     * Điều này đảm bảo việc cập nhật trạng thái luôn đúng dòng.
+     * Các dòng đã thay đổi do luồng ghi báo lên, chờ được áp dụng vào bảng trên EDT.
+     * Khóa là ID trong CSDL nên nhiều thay đổi của cùng một API chỉ giữ lại trạng thái mới nhất.
      */
-    private final Map<Integer, Integer> modelRowToDbId = new HashMap<>();
+    private final Map<Integer, Object[]> pendingRowChanges = new LinkedHashMap<>();
+    /**
+     * Gộp các thông báo thay đổi của luồng ghi thành nhiều nhất một lần cập nhật bảng mỗi khoảng thời gian.
+     */
+    private final UiRefreshScheduler rowRefreshScheduler = new UiRefreshScheduler(this::applyPendingRowChanges,
+            UiRefreshScheduler.DEFAULT_MIN_INTERVAL_MILLIS, UiRefreshScheduler.DEFAULT_MAX_INTERVAL_MILLIS);
+    private static final int EXTRACTION_THREADS = 2;
+    private static final int EXTRACTION_QUEUE_CAPACITY = 1_000;
+    /**
+     * Executor dùng chung cho các việc nền (virtual thread trên Java 21+), được dừng trong {@link #extensionUnloaded()}.
+     */
+    private final ExecutorService backgroundExecutor = BackgroundExecutor.create();
+    /**
+     * Hàng đợi tuần tự cho các thao tác CSDL do giao diện khởi tạo: ghi trạng thái người dùng tick trên bảng
+     * (giữ đúng thứ tự khi tick rồi bỏ tick liên tiếp) và khởi động lại CSDL khi Apply.
+     */
+    private final Executor databaseTasks = BackgroundExecutor.serial(backgroundExecutor);
 
     // Các nhãn (JLabel) để hiển thị thống kê trên tab Settings.
     private final JLabel totalLbl = new JLabel("Total: 0");
@@ -71,6 +164,13 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
     private final JLabel rejectedLbl = new JLabel("Rejected: 0");
     private final JLabel bypassLbl = new JLabel("Bypass: 0");
     private final JLabel unverifiedLbl = new JLabel("Unverified: 0");
+    private final JLabel ingestionLbl = new JLabel("Queue: 0");
+    private final JLabel pathCacheLbl = new JLabel("Path Cache: 0");
+    private final JLabel extractionLbl = new JLabel("Extraction: 0");
+    /**
+     * Timer làm mới nhãn metrics của hàng đợi ghi trên tab Settings.
+     */
+    private javax.swing.Timer metricsTimer;
 
     /**
      * Phương thức chính được Burp gọi khi extension được tải.
@@ -88,7 +188,16 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
         loadSavedSettings();
         // Khởi tạo trình quản lý CSDL.
         databaseManager = new DatabaseManager(api);
-        databaseManager.initialize(savedOutputPath);
+        databaseManager.setChangeListener(this::queueRowChanges);
+        databaseManager.setMetrics(metrics);
+        databaseManager.initialize(savedOutputPath, sqliteTuning);
+        endpointIndex.reload(databaseManager);
+        rebuildPathTemplateLearner();
+        startIngestionPipeline();
+        startExtractionExecutor();
+        registerGauges();
+        api.logging().logToOutput("Background tasks run on " + (BackgroundExecutor.isVirtual(backgroundExecutor)
+                ? "virtual threads" : "a pool of " + BackgroundExecutor.FALLBACK_THREADS + " threads"));
 
         // Tạo giao diện người dùng trên luồng Event Dispatch Thread (EDT) của Swing để đảm bảo an toàn luồng.
         SwingUtilities.invokeLater(this::createUI);
@@ -106,8 +215,20 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
              */
             @Override
             public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived response) {
+                long start = System.nanoTime();
+                try {
+                    return process(response, start);
+                } finally {
+                    handlerTotalStage.recordSince(start);
+                }
+            }
+
+            private ResponseReceivedAction process(HttpResponseReceived response, long start) {
+                // Đọc bộ lọc một lần để cả request dùng cùng một phiên bản cài đặt.
+                RequestFilter filter = requestFilter;
                 // Lọc bỏ các API trả về status code bị loại trừ.
-                if (isExcludedStatusCode(response.statusCode())) {
+                if (filter.isExcludedStatusCode(response.statusCode())) {
+                    excluded(excludedStatusCount, start);
                     return ResponseReceivedAction.continueWith(response);
                 }
 
@@ -117,64 +238,61 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
                 // Lọc bỏ các request không cần thiết (OPTIONS, Intruder, các extension khác).
                 if (method.equals("OPTIONS") || sourceType == ToolType.INTRUDER || sourceType == ToolType.EXTENSIONS) {
+                    excluded(excludedToolCount, start);
                     return ResponseReceivedAction.continueWith(response);
                 }
 
                 String host = request.httpService().host();
                 String rawPath = request.pathWithoutQuery();
-                String path = normalizePath(rawPath);
-                
-                // Trích xuất tất cả tham số từ cả URL và body.
-                Set<String> requestParams = extractParameters(request);
-                
-                // Trường hợp 1: Request từ Scanner -> xử lý các tham số đã được quét.
-                if (sourceType == ToolType.SCANNER) {
-                    new Thread(() -> {
-                        boolean updated = databaseManager.processScannedParameters(method, host, path, requestParams);
-                        // Nếu CSDL có thay đổi, tải lại dữ liệu trên giao diện.
-                        if (updated) {
-                            SwingUtilities.invokeLater(RecheckScanApiExtension.this::loadDataFromDb);
-                        }
-                    }).start();
-                } 
-                // Trường hợp 2: Request từ các công cụ khác (Proxy, Repeater) và nằm trong scope.
-                else if (api.scope().isInScope(request.url()) && !isExcludedByExtension(rawPath)) {
-                    // Nếu request từ Repeater, đánh dấu vào DB.
-                    if (sourceType == ToolType.REPEATER) {
-                        new Thread(() -> {
-                            boolean updated = databaseManager.updateRepeaterStatus(method, host, path);
-                            // Tải lại dữ liệu nếu trạng thái 'is_from_repeater' vừa được cập nhật.
-                            if (updated) {
-                                SwingUtilities.invokeLater(RecheckScanApiExtension.this::loadDataFromDb);
-                            }
-                        }).start();
-                    }
+                boolean inScope = api.scope().isInScope(request.url());
+                // Request ngoài scope (trừ Scanner) không được ghi nhận nên cũng không cần trích xuất tham số.
+                if (sourceType != ToolType.SCANNER && !inScope) {
+                    excluded(excludedScopeCount, start);
+                    return ResponseReceivedAction.continueWith(response);
+                }
+                if (sourceType != ToolType.SCANNER && filter.isExcludedByExtension(rawPath)) {
+                    excluded(excludedExtensionCount, start);
+                    return ResponseReceivedAction.continueWith(response);
+                }
+                exclusionStage.recordSince(start);
 
-                    // Nhánh 2a: Tự động bypass cho API không có tham số.
-                    if (requestParams.isEmpty()) {
-                        new Thread(() -> {
-                            boolean updated = databaseManager.autoBypassApi(method, host, path);
-                            if (updated) {
-                                SwingUtilities.invokeLater(RecheckScanApiExtension.this::loadDataFromDb);
-                            }
-                        }).start();
-                         // Thêm highlight/note ngay lập tức cho request này.
-                         if (highlightEnabled) response.annotations().setHighlightColor(HighlightColor.YELLOW);
-                         if (noteEnabled) response.annotations().setNotes("Bypassed");
-                    } else {
-                        // Nhánh 2b: Xử lý request thông thường để tìm và ghi nhận tham số mới.
-                        new Thread(() -> {
-                            databaseManager.insertOrUpdateApi(method, host, path, requestParams);
-                            // Tải lại UI để phản ánh thay đổi (nếu có param mới được thêm).
-                            SwingUtilities.invokeLater(RecheckScanApiExtension.this::loadDataFromDb);
-                        }).start();
+                long normalizeStart = System.nanoTime();
+                String normalizedPath = normalizePath(rawPath);
+                // Chỉ học từ traffic Proxy trong scope: payload của Scanner và các host không liên quan không được
+                // làm phình cây segment; các công cụ khác chỉ áp dụng template đã học.
+                PathTemplateLearner learner = pathTemplateLearner;
+                if (learner.isEnabled() && inScope) {
+                    normalizedPath = sourceType == ToolType.PROXY
+                            ? learner.observe(host, normalizedPath)
+                            : learner.templateFor(host, normalizedPath);
+                }
+                String path = normalizedPath;
+                normalizationStage.recordSince(normalizeStart);
+
+                // Các sự kiện được áp dụng vào chỉ mục trong bộ nhớ trước, rồi mới được đẩy vào hàng đợi
+                // để luồng ghi lưu xuống CSDL và tải lại UI khi có thay đổi.
+                ParameterExtractor extractor = parameterExtractor;
+                ExecutorService executor = extractionExecutor;
+                if (extractor.isAsync() && executor != null) {
+                    // Trích xuất và ghi nhận trên luồng riêng; highlight/note bên dưới dựa trên trạng thái đã có trong chỉ mục.
+                    executor.execute(() -> recordRequest(method, host, path, sourceType, extract(extractor, request)));
+                } else {
+                    ParameterExtractor.Result extracted = extract(extractor, request);
+                    recordRequest(method, host, path, sourceType, extracted);
+                    // Thêm highlight/note ngay lập tức cho request không có tham số (đã được auto-bypass).
+                    if (sourceType != ToolType.SCANNER && isWithoutParams(extracted)) {
+                        if (highlightEnabled) response.annotations().setHighlightColor(HighlightColor.YELLOW);
+                        if (noteEnabled) response.annotations().setNotes("Bypassed");
                     }
-                    // Luôn kiểm tra trạng thái cuối cùng trong CSDL để áp dụng highlight và note.
-                    Object[] status = databaseManager.getApiStatus(method, host, path);
-                    if (status != null) {
-                        boolean isScanned = (boolean) status[0];
-                        boolean isBypassed = (boolean) status[2];
-                        boolean isRejected = (boolean) status[1];
+                }
+
+                if (sourceType != ToolType.SCANNER) {
+                    // Luôn kiểm tra trạng thái mới nhất trong chỉ mục để áp dụng highlight và note.
+                    int status = endpointIndex.status(method, host, path);
+                    if (status != EndpointIndex.UNKNOWN) {
+                        boolean isScanned = (status & EndpointIndex.SCANNED) != 0;
+                        boolean isBypassed = (status & EndpointIndex.BYPASSED) != 0;
+                        boolean isRejected = (status & EndpointIndex.REJECTED) != 0;
 
                         if (highlightEnabled && (isScanned || isBypassed)) {
                             response.annotations().setHighlightColor(HighlightColor.YELLOW);
@@ -193,214 +311,385 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
                 return ResponseReceivedAction.continueWith(response);
             }
+
+            private void excluded(LongAdder reason, long start) {
+                reason.increment();
+                exclusionStage.recordSince(start);
+            }
         });
     }
 
     /**
-     * Trích xuất tham số từ cả URL (query string) và body của request.
-     * <p>
-     * Phương thức này hợp nhất tham số từ hai nguồn vào một Set duy nhất.
-     * Nó sử dụng các parser tích hợp của Montoya API để xử lý các định dạng phổ biến.
-     *
-     * @param request HttpRequest cần phân tích.
-     * @return một Set chứa tên của tất cả các tham số.
+     * Trích xuất tham số và ghi thời gian vào công đoạn {@code handler.extraction}
+     * (kể cả khi chạy trên luồng trích xuất ở chế độ bất đồng bộ).
      */
-    private Set<String> extractParameters(HttpRequest request) {
+    private ParameterExtractor.Result extract(ParameterExtractor extractor, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            return extractor.extract(request);
+        } finally {
+            extractionStage.recordSince(start);
+        }
+    }
 
-        Set<String> allParamNames = new HashSet<>();
+    /**
+     * Ghi nhận các sự kiện của một request đã được trích xuất tham số.
+     * Có thể chạy trên luồng xử lý HTTP hoặc trên luồng trích xuất (chế độ bất đồng bộ).
+     */
+    private void recordRequest(String method, String host, String path, ToolType sourceType, ParameterExtractor.Result extracted) {
+        long start = System.nanoTime();
+        try {
+            recordEvents(method, host, path, sourceType, extracted);
+        } finally {
+            recordStage.recordSince(start);
+        }
+    }
 
-        // 1. Lấy tham số từ URL (query string)
-        List<ParsedHttpParameter> urlParams = request.parameters(HttpParameterType.URL);
-        if (urlParams != null && !urlParams.isEmpty()) {
-            urlParams.stream()
-                    .map(ParsedHttpParameter::name)
-                    .forEach(allParamNames::add);
+    /**
+     * true nếu request chắc chắn không có tham số. Body bị bỏ qua vì quá lớn/quá sâu thì không tính, vì tham số
+     * của nó chưa được biết.
+     */
+    private static boolean isWithoutParams(ParameterExtractor.Result extracted) {
+        return extracted.params().isEmpty() && !extracted.bodySkipped();
+    }
+
+    private void recordEvents(String method, String host, String path, ToolType sourceType, ParameterExtractor.Result extracted) {
+        Set<String> requestParams = extracted.params();
+        // Trường hợp 1: Request từ Scanner -> xử lý các tham số đã được quét.
+        if (sourceType == ToolType.SCANNER) {
+            recordObservation(ApiObservation.scanned(method, host, path, requestParams));
+            return;
+        }
+        // Trường hợp 2: Request từ các công cụ khác (Proxy, Repeater) và nằm trong scope.
+        if (isWithoutParams(extracted)) {
+            // Nhánh 2a: Tự động bypass cho API không có tham số.
+            recordObservation(ApiObservation.autoBypass(method, host, path));
+        } else {
+            // Nhánh 2b: Xử lý request thông thường để tìm và ghi nhận tham số mới. Nếu body bị bỏ qua và không có
+            // tham số nào trên URL, API vẫn được ghi nhận (chưa quét) thay vì bị bypass.
+            recordObservation(ApiObservation.observed(method, host, path, requestParams));
         }
+        // Nếu request từ Repeater, đánh dấu vào DB. Phải ghi sau sự kiện ở trên: với API lần đầu xuất hiện từ
+        // Repeater, sự kiện repeater cần API đã có trong chỉ mục, nếu không nó sẽ bị bỏ qua.
+        if (sourceType == ToolType.REPEATER) {
+            recordObservation(ApiObservation.repeater(method, host, path));
+        }
+    }
 
-        // 2. Lấy tham số từ Body nếu có
-        if (request.body().length() > 0) {
-            ContentType contentType = request.contentType();
-            
-            List<ParsedHttpParameter> bodyParams = null;
+    /**
+     * Áp dụng một sự kiện vào chỉ mục trong bộ nhớ và, nếu trạng thái thay đổi, đẩy nó vào hàng đợi ghi.
+     * Sự kiện bị hàng đợi bỏ được báo qua {@link #onObservationDropped}. Trong lúc CSDL đang khởi động lại,
+     * sự kiện được giữ trong {@link #restartBuffer} thay vì áp dụng.
+     */
+    private void recordObservation(ApiObservation observation) {
+        List<ApiObservation> buffer = restartBuffer;
+        if (buffer != null && bufferDuringRestart(buffer, observation)) {
+            return;
+        }
+        if (endpointIndex.apply(observation)) {
+            ingestionPipeline.submit(observation);
+        }
+    }
 
-            switch (contentType) {
-                case JSON:
-                    bodyParams = request.parameters(HttpParameterType.JSON);
-                    break;
-                case URL_ENCODED:
-                    bodyParams = request.parameters(HttpParameterType.BODY);
-                    break;
-                case MULTIPART:
-                     bodyParams = request.parameters(HttpParameterType.BODY);
-                     break;
-                case XML:
-                     bodyParams = request.parameters(HttpParameterType.XML);
-                     break;
-                default:
-                    break;
+    /**
+     * @return false nếu việc khởi động lại vừa kết thúc, khi đó sự kiện phải được xử lý bình thường.
+     */
+    private boolean bufferDuringRestart(List<ApiObservation> buffer, ApiObservation observation) {
+        synchronized (buffer) {
+            if (restartBuffer != buffer) {
+                return false;
             }
-
-            if (bodyParams != null && !bodyParams.isEmpty()) {
-                bodyParams.stream()
-                        .map(ParsedHttpParameter::name)
-                        .forEach(allParamNames::add);
+            if (buffer.size() < ingestionQueueCapacity) {
+                buffer.add(observation);
+            } else {
+                // Sự kiện chưa được áp dụng vào chỉ mục, nên bỏ nó không làm chỉ mục lệch khỏi CSDL.
+                restartBufferDropped++;
             }
+            return true;
         }
-
-        return allParamNames;
     }
 
+    /**
+     * Sự kiện đã được áp dụng vào chỉ mục nhưng sẽ không được ghi (hàng đợi đầy, đã dừng, hoặc bị đẩy ra theo
+     * DROP_OLDEST): đánh dấu API đó cũ để luồng ghi nạp lại trạng thái thật từ CSDL sau đợt kế tiếp.
+     */
+    private void onObservationDropped(ApiObservation observation) {
+        endpointIndex.markStale(observation.method(), observation.host(), observation.path());
+    }
 
     /**
-     * Cập nhật một dòng đã có hoặc chèn một dòng mới vào JTable.
-     * @param rowData Dữ liệu trả về từ DatabaseManager, bao gồm cả ID.
+     * Áp dụng cài đặt mới cho phần nền: rút cạn luồng trích xuất và hàng đợi ghi vào file CSDL cũ,
+     * mở lại CSDL với cài đặt mới, nạp lại chỉ mục rồi khởi động lại các luồng. Không chạy trên EDT.
+     * <p>
+     * Các sự kiện đến trong lúc này được giữ lại (tối đa bằng sức chứa hàng đợi ghi) và phát lại theo đúng thứ tự
+     * sau khi hàng đợi mới đã chạy, thay vì bị hàng đợi đang dừng từ chối.
      */
-    private void updateOrInsertTableRow(Object[] rowData) {
-        int dbId = (int) rowData[8]; // Index của ID
-        Integer modelRowIndex = findModelRowByDbId(dbId);
+    private void restartDatabase() {
+        List<ApiObservation> buffer = new ArrayList<>();
+        restartBuffer = buffer;
+        try {
+            reopenDatabase();
+        } finally {
+            replayRestartBuffer(buffer);
+        }
+    }
 
-        if (modelRowIndex != null) { // API này đã tồn tại trên bảng -> cập nhật.
-            tableModel.setValueAt(rowData[3], modelRowIndex, 3); // Cập nhật cột Unscanned Params.
-            tableModel.setValueAt(rowData[4], modelRowIndex, 4); // Cập nhật cột Scanned.
-            tableModel.setValueAt(rowData[5], modelRowIndex, 5); // Cập nhật cột Rejected
-            tableModel.setValueAt(rowData[6], modelRowIndex, 6); // Cập nhật cột Bypass
-            tableModel.setValueAt(rowData[7], modelRowIndex, 7); // Cập nhật cột Repeater
-        } else { // API mới -> chèn vào đầu bảng.
-            tableModel.insertRow(0, rowData);
-            // Sau khi chèn, phải cập nhật lại toàn bộ map ánh xạ.
-            remapAllIndices();
+    private void reopenDatabase() {
+        // Rút cạn các request đang trích xuất dở trước khi dừng hàng đợi ghi.
+        stopExtractionExecutor();
+        parameterExtractor = new ParameterExtractor(extractionMaxBodyKb, extractionMaxJsonDepth, extractionMaxParams, extractionAsync, extractionStructured);
+        // Dừng hàng đợi ghi để các sự kiện còn lại được ghi vào file CSDL cũ.
+        stopIngestionPipeline();
+        // Khởi tạo lại CSDL trước để đảm bảo đang làm việc với đúng file
+        databaseManager.close();
+        databaseManager.initialize(savedOutputPath, sqliteTuning);
+        endpointIndex.reload(databaseManager);
+        rebuildPathTemplateLearner();
+        startIngestionPipeline();
+        startExtractionExecutor();
+    }
+
+    /**
+     * Phát lại các sự kiện đã giữ trong lúc khởi động lại. Chỉ ngừng giữ khi buffer đã trống, để sự kiện mới
+     * không vượt lên trước các sự kiện cũ của cùng một API.
+     */
+    private void replayRestartBuffer(List<ApiObservation> buffer) {
+        int replayed = 0;
+        while (true) {
+            List<ApiObservation> pending;
+            synchronized (buffer) {
+                if (buffer.isEmpty()) {
+                    restartBuffer = null;
+                    break;
+                }
+                pending = new ArrayList<>(buffer);
+                buffer.clear();
+            }
+            for (ApiObservation observation : pending) {
+                if (endpointIndex.apply(observation)) {
+                    ingestionPipeline.submit(observation);
+                }
+            }
+            replayed += pending.size();
+        }
+        int dropped;
+        synchronized (buffer) {
+            dropped = restartBufferDropped;
+            restartBufferDropped = 0;
+        }
+        if (replayed > 0 || dropped > 0) {
+            api.logging().logToOutput("Replayed " + replayed + " observations received while restarting the database"
+                    + (dropped > 0 ? ", dropped " + dropped : "") + ".");
         }
-        updateStats();
     }
 
     /**
-     * Tìm chỉ số dòng trong TableModel (dữ liệu hiển thị) dựa trên ID trong CSDL.
-     * @param dbId ID duy nhất của dòng trong CSDL.
-     * @return Chỉ số dòng trên JTable, hoặc null nếu không tìm thấy.
+     * Khởi tạo (hoặc khởi tạo lại) hàng đợi ghi với cấu hình hiện tại.
+     * Hàng đợi cũ (nếu có) được dừng và rút cạn trước khi hàng đợi mới bắt đầu.
      */
-    private Integer findModelRowByDbId(int dbId) {
-        return modelRowToDbId.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(dbId))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .orElse(null);
+    private void startIngestionPipeline() {
+        stopIngestionPipeline();
+        IngestionPipeline pipeline = new IngestionPipeline(api, ingestionQueueCapacity, ingestionDropPolicy,
+                ingestionBatchSize, ingestionFlushIntervalMillis,
+                this::writeObservations,
+                rowRefreshScheduler::request,
+                this::onObservationDropped);
+        pipeline.start();
+        ingestionPipeline = pipeline;
     }
 
     /**
-     * Ánh xạ lại toàn bộ chỉ số dòng trên JTable với ID trong CSDL.
-     * Cần được gọi mỗi khi có sự thay đổi về cấu trúc bảng (thêm/xóa dòng).
+     * Ghi một đợt sự kiện (trên luồng ghi). Nếu đợt bị rollback, các API của nó được nạp lại từ CSDL
+     * vì chỉ mục đã áp dụng những sự kiện không được lưu.
      */
-    private void remapAllIndices() {
-        modelRowToDbId.clear();
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            Integer id = (Integer) tableModel.getValueAt(i, 8); // Index của ID
-            if (id != null) {
-                modelRowToDbId.put(i, id);
+    private boolean writeObservations(List<ApiObservation> batch) {
+        List<ApiObservation> observations = applyLearnedTemplates(batch);
+        try {
+            return databaseManager.writeBatch(observations);
+        } catch (RuntimeException e) {
+            for (ApiObservation observation : observations) {
+                endpointIndex.markStale(observation.method(), observation.host(), observation.path());
             }
+            throw e;
+        } finally {
+            endpointIndex.refreshStale(databaseManager);
+            mergeLearnedTemplates();
         }
     }
 
     /**
-     * Khởi tạo toàn bộ giao diện người dùng của extension.
+     * Ở chế độ AUTO, sự kiện đã vào hàng đợi trước khi template của nó được học vẫn mang path gốc: đổi sang
+     * template trước khi ghi để không tạo lại dòng vừa bị gộp. Mục path gốc trong chỉ mục được đánh dấu cũ.
      */
-    private void createUI() {
-        // Khởi tạo TableModel với các cột
-        // Thứ tự rất quan trọng: Method, Host, Path, Unscanned, Scanned, Rejected, Bypass, Repeater(ẩn), id(ẩn)
-        tableModel = new DefaultTableModel(new Object[]{"Method", "Host", "Path", "Unscanned Params", "Scanned", "Rejected", "Bypass", "Repeater", "id"}, 0) {
-            /**
-             * Sửa đổi logic cho phép chỉnh sửa ô.
-             * - "Rejected": Chỉ có thể sửa nếu API chưa "Scanned" VÀ đã được gửi từ "Repeater".
-             * - "Bypass": Có thể sửa nếu API chưa "Scanned".
-             * - Các cột khác không thể sửa trực tiếp trên bảng.
-             */
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                boolean isScanned = Boolean.TRUE.equals(getValueAt(row, 4));
-                // Nếu đã được quét, không cho phép chỉnh sửa bất kỳ trạng thái nào.
-                if (isScanned) {
-                    return false;
+    private List<ApiObservation> applyLearnedTemplates(List<ApiObservation> batch) {
+        PathTemplateLearner learner = pathTemplateLearner;
+        if (learner.mode() != PathTemplateLearner.Mode.AUTO) {
+            return batch;
+        }
+        List<ApiObservation> result = null;
+        for (int i = 0; i < batch.size(); i++) {
+            ApiObservation observation = batch.get(i);
+            String template = learner.templateFor(observation.host(), observation.path());
+            if (!template.equals(observation.path())) {
+                if (result == null) {
+                    result = new ArrayList<>(batch);
                 }
+                result.set(i, observation.withPath(template));
+                endpointIndex.markStale(observation.method(), observation.host(), observation.path());
+            }
+        }
+        return result == null ? batch : result;
+    }
 
-                // Logic cho cột "Rejected" (index 5)
-                if (column == 5) {
-                    // Lấy trạng thái từ cột "Repeater" (index 7)
-                    boolean isFromRepeater = Boolean.TRUE.equals(getValueAt(row, 7));
-                    return isFromRepeater; // Chỉ cho phép sửa nếu `isFromRepeater` là true.
+    /**
+     * Gộp các dòng đã lưu của những host vừa học được template (chạy trên luồng ghi): các path cụ thể được ghi
+     * trước khi đủ ngưỡng sẽ được chuyển vào dòng template thay vì nằm lại mãi ở trạng thái chưa quét.
+     */
+    private void mergeLearnedTemplates() {
+        if (hostsWithNewTemplates.isEmpty()) {
+            return;
+        }
+        List<String> hosts = new ArrayList<>(hostsWithNewTemplates);
+        hostsWithNewTemplates.removeAll(hosts);
+        int merged = 0;
+        for (String host : hosts) {
+            merged += databaseManager.normalizeStoredPaths(host, this::normalizeStoredPath, null);
+        }
+        if (merged > 0) {
+            api.logging().logToOutput("Merged " + merged + " stored APIs into learned path templates.");
+            // Chỉ mục được thay nguyên khối khi nạp lại, nên sự kiện từ luồng proxy không bị mất trong lúc nạp.
+            endpointIndex.reload(databaseManager);
+            List<Object[]> rows = loadTableRows();
+            SwingUtilities.invokeLater(() -> {
+                if (tableModel != null) {
+                    showTableRows(rows);
                 }
+            });
+        }
+    }
 
-                // Logic cho cột "Bypass" (index 6)
-                if (column == 6) {
-                    return true;
-                }
+    /**
+     * Khởi tạo (hoặc khởi tạo lại) các luồng trích xuất tham số theo cấu hình hiện tại.
+     * Hàng đợi có giới hạn; khi đầy hoặc khi pool đã dừng (lúc khởi động lại), luồng xử lý HTTP tự trích xuất
+     * thay vì bỏ request. Không dùng CallerRunsPolicy vì nó lặng lẽ bỏ task khi pool đã shutdown.
+     */
+    private void startExtractionExecutor() {
+        stopExtractionExecutor();
+        if (!parameterExtractor.isAsync()) {
+            return;
+        }
+        int[] threadCount = {0};
+        extractionExecutor = new ThreadPoolExecutor(EXTRACTION_THREADS, EXTRACTION_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXTRACTION_QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "RecheckScan-extract-" + (++threadCount[0]));
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> task.run());
+    }
 
-                return false;
+    /**
+     * Dừng các luồng trích xuất (nếu có), chờ các request đang chờ được ghi nhận xong.
+     */
+    private void stopExtractionExecutor() {
+        ExecutorService executor = extractionExecutor;
+        extractionExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+    }
 
-            /**
-             * Định nghĩa kiểu dữ liệu cho các cột để JTable có thể render đúng.
-             */
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex >= 4 && columnIndex <= 7) return Boolean.class; // Các cột trạng thái (Scanned, Rejected, Bypass, Repeater)
-                if (columnIndex == 8) return Integer.class; // Cột ID
-                return String.class;
-            }
+    /**
+     * Dừng hàng đợi ghi hiện tại, chờ các sự kiện còn lại được ghi xuống CSDL.
+     */
+    private void stopIngestionPipeline() {
+        IngestionPipeline pipeline = ingestionPipeline;
+        if (pipeline != null) {
+            pipeline.shutdown(2000);
+        }
+    }
 
-            /**
-             * Ghi đè phương thức này để xử lý sự kiện người dùng tick vào các checkbox.
-             * Khi một checkbox được tick, trạng thái tương ứng sẽ được cập nhật vào CSDL.
-             */
-            @Override
-            public void setValueAt(Object aValue, int row, int col) {
-                // Tạm thời bỏ qua việc cập nhật UI từ chính logic bên trong (tránh lặp vô hạn).
-                if (!(Thread.currentThread().getStackTrace()[2].getMethodName().equals("updateOrInsertTableRow"))) {
-                    super.setValueAt(aValue, row, col); // Cập nhật giá trị trên UI trước.
-                } else {
-                     super.setValueAt(aValue, row, col);
-                     return;
-                }
+    /**
+     * Đăng ký các gauge: số liệu của hàng đợi ghi hiện tại (hàng đợi có thể được tạo lại khi Apply)
+     * và khoảng thời gian làm mới bảng.
+     */
+    private void registerGauges() {
+        metrics.gauge("ingestion.queueDepth", () -> pipelineValue(IngestionPipeline::queueDepth));
+        metrics.gauge("ingestion.processed", () -> pipelineValue(IngestionPipeline::processedCount));
+        metrics.gauge("ingestion.dropped", () -> pipelineValue(IngestionPipeline::droppedCount));
+        metrics.gauge("ingestion.failed", () -> pipelineValue(IngestionPipeline::failedCount));
+        metrics.gauge("ui.refreshIntervalMillis", rowRefreshScheduler::intervalMillis);
+    }
 
-                // Chỉ xử lý các cột checkbox trạng thái.
-                if (col == 5 || col == 6) {
-                    Integer id = (Integer) getValueAt(row, 8); // Lấy ID của dòng từ cột ẩn.
-                    if (id != null) {
-                        // Logic đảm bảo chỉ 1 trong 3 checkbox (Scanned, Rejected, Bypassed) được chọn tại một thời điểm.
-                        if (Boolean.TRUE.equals(aValue)) {
-                            for (int i = 5; i <= 6; i++) {
-                                final boolean isChecked = (i == col);
-                                if (!isChecked) {
-                                    super.setValueAt(false, row, i); // Bỏ tick các ô khác trên UI.
-                                }
-                                // Cập nhật CSDL trong một luồng riêng.
-                                final int finalI = i;
-                                new Thread(() -> {
-                                    String dbColumn = switch (finalI) {
-                                        case 4 -> "is_scanned";
-                                        case 5 -> "is_rejected";
-                                        case 6 -> "is_bypassed";
-                                        default -> null;
-                                    };
-                                    if (dbColumn != null) {
-                                        databaseManager.updateApiStatus(id, dbColumn, isChecked);
-                                    }
-                                }).start();
-                            }
-                        } else {
-                             // Nếu người dùng bỏ tick một ô, cập nhật trạng thái đó trong CSDL.
-                            String dbColumn = switch (col) {
-                                case 5 -> "is_rejected";
-                                case 6 -> "is_bypassed";
-                                default -> null;
-                            };
-                             if (dbColumn != null) {
-                                 new Thread(() -> databaseManager.updateApiStatus(id, dbColumn, false)).start();
-                             }
-                        }
-                    }
-                }
-                updateStats(); // Cập nhật các nhãn thống kê.
+    private long pipelineValue(ToLongFunction<IngestionPipeline> value) {
+        IngestionPipeline pipeline = ingestionPipeline;
+        return pipeline == null ? 0 : value.applyAsLong(pipeline);
+    }
+
+    /**
+     * Hàng đợi ghi hiện tại, để harness tải ngoài Burp đọc số sự kiện đã ghi.
+     */
+    IngestionPipeline ingestionPipeline() {
+        return ingestionPipeline;
+    }
+
+    /**
+     * Nhận các dòng thay đổi từ {@link DatabaseManager} (trên luồng ghi) và giữ lại cho tới khi EDT áp dụng.
+     */
+    private void queueRowChanges(List<Object[]> rows) {
+        synchronized (pendingRowChanges) {
+            for (Object[] row : rows) {
+                pendingRowChanges.put((Integer) row[ApiTableModel.COL_ID], row);
             }
-        };
+        }
+    }
+
+    /**
+     * Áp dụng các dòng thay đổi đang chờ vào bảng. Chỉ những dòng bị ảnh hưởng mới phát sự kiện
+     * cập nhật/chèn, thay vì xóa và tải lại toàn bộ bảng từ CSDL.
+     */
+    private void applyPendingRowChanges() {
+        if (tableModel == null) {
+            return;
+        }
+        List<Object[]> rows;
+        synchronized (pendingRowChanges) {
+            if (pendingRowChanges.isEmpty()) {
+                return;
+            }
+            rows = new ArrayList<>(pendingRowChanges.values());
+            pendingRowChanges.clear();
+        }
+        long start = System.nanoTime();
+        tableModel.applyRows(rows);
+        updateStats();
+        applyRowsStage.recordSince(start);
+        appliedRowCount.add(rows.size());
+    }
+
+    /**
+     * Xử lý việc người dùng tick/bỏ tick Rejected hoặc Bypass trên bảng (chạy trên EDT).
+     * Chỉ mục được cập nhật ngay; việc ghi CSDL được đẩy sang luồng ghi trạng thái theo đúng thứ tự thao tác.
+     */
+    private void onStatusEdited(int id, String method, String host, String path, int bit, boolean value) {
+        endpointIndex.setStatus(method, host, path, bit, value);
+        String dbColumn = bit == EndpointIndex.REJECTED ? "is_rejected" : "is_bypassed";
+        databaseTasks.execute(() -> databaseManager.updateApiStatus(id, dbColumn, value));
+        updateStats();
+    }
+
+    /**
+     * Khởi tạo toàn bộ giao diện người dùng của extension.
+     */
+    private void createUI() {
+        // Khởi tạo TableModel với các cột (xem ApiTableModel)
+        // Thứ tự rất quan trọng: Method, Host, Path, Unscanned, Scanned, Rejected, Bypass, Repeater(ẩn), id(ẩn)
+        tableModel = new ApiTableModel();
+        tableModel.setStatusEditListener(this::onStatusEdited);
 
         // Bố cục chính của tab extension.
         JTabbedPane tabs = new JTabbedPane();
@@ -408,16 +697,15 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
         // --- Cài đặt Tab "Unscanned" ---
         JTable unscannedTable = createCommonTable();
         setupHiddenColumns(unscannedTable); // Ẩn các cột cần thiết (Repeater, id)
-        final TableRowSorter<DefaultTableModel> unscannedSorter = new TableRowSorter<>(tableModel);
+        final TableRowSorter<ApiTableModel> unscannedSorter = new TableRowSorter<>(tableModel);
         unscannedTable.setRowSorter(unscannedSorter);
 
         // Tạo bộ lọc để chỉ hiển thị các dòng chưa có trạng thái nào (unscanned, unrejected, unbypassed).
         final RowFilter<Object, Object> unscannedStatusFilter = new RowFilter<>() {
             public boolean include(Entry<?, ?> entry) {
-                boolean scanned = Boolean.TRUE.equals(entry.getValue(4));
-                boolean rejected = Boolean.TRUE.equals(entry.getValue(5));
-                boolean bypass = Boolean.TRUE.equals(entry.getValue(6));
-                return !scanned && !rejected && !bypass;
+                // Đọc thẳng các bit trạng thái từ model theo chỉ số dòng, không cần đọc từng ô Boolean.
+                int status = tableModel.statusAt((Integer) entry.getIdentifier());
+                return (status & (EndpointIndex.SCANNED | EndpointIndex.REJECTED | EndpointIndex.BYPASSED)) == 0;
             }
         };
         unscannedSorter.setRowFilter(unscannedStatusFilter);
@@ -432,7 +720,7 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
         // --- Cài đặt Tab "Logs" ---
         JTable logsTable = createCommonTable();
         setupHiddenColumns(logsTable); // Ẩn các cột cần thiết (Repeater, id)
-        final TableRowSorter<DefaultTableModel> logsSorter = new TableRowSorter<>(tableModel);
+        final TableRowSorter<ApiTableModel> logsSorter = new TableRowSorter<>(tableModel);
         logsTable.setRowSorter(logsSorter);
         JButton logsRefreshButton = new JButton("Refresh");
         logsRefreshButton.addActionListener(e -> logsSorter.setRowFilter(logsSorter.getRowFilter()));
@@ -446,6 +734,9 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
         JTextField outputPathField = new JTextField(savedOutputPath != null ? savedOutputPath : "");
         JTextField excludeStatusCodesField = new JTextField(exclude_status_code != null ? exclude_status_code : "404,405");
         JTextArea pathParameterRulesArea = new JTextArea(path_parameter_rules != null ? path_parameter_rules : "");
+        JComboBox<PathTemplateLearner.Mode> pathLearningModeComboBox = new JComboBox<>(PathTemplateLearner.Mode.values());
+        pathLearningModeComboBox.setSelectedItem(pathLearningMode);
+        JTextField pathLearningThresholdField = new JTextField(String.valueOf(pathLearningThreshold));
         JButton browseButton = new JButton("Browse");
         browseButton.addActionListener(e -> {
             JFileChooser fileChooser = new JFileChooser();
@@ -469,41 +760,152 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
             autoBypassNoParam = autoBypassCheckBox.isSelected();
             saveSettings();
         });
+        JTextField ingestionQueueSizeField = new JTextField(String.valueOf(ingestionQueueCapacity));
+        JComboBox<IngestionPipeline.DropPolicy> dropPolicyComboBox = new JComboBox<>(IngestionPipeline.DropPolicy.values());
+        dropPolicyComboBox.setSelectedItem(ingestionDropPolicy);
+        JTextField batchSizeField = new JTextField(String.valueOf(ingestionBatchSize));
+        JTextField flushIntervalField = new JTextField(String.valueOf(ingestionFlushIntervalMillis));
+        JComboBox<SqliteTuning.JournalMode> journalModeComboBox = new JComboBox<>(SqliteTuning.JournalMode.values());
+        journalModeComboBox.setSelectedItem(sqliteTuning.journalMode());
+        JComboBox<SqliteTuning.Synchronous> synchronousComboBox = new JComboBox<>(SqliteTuning.Synchronous.values());
+        synchronousComboBox.setSelectedItem(sqliteTuning.synchronous());
+        JTextField mmapSizeField = new JTextField(String.valueOf(sqliteTuning.mmapSizeMb()));
+        JTextField cacheSizeField = new JTextField(String.valueOf(sqliteTuning.cacheSizeMb()));
+        JTextField busyTimeoutField = new JTextField(String.valueOf(sqliteTuning.busyTimeoutMillis()));
+        JCheckBox tempStoreMemoryCheckBox = new JCheckBox("Temp Store in Memory", sqliteTuning.tempStoreMemory());
+        JTextField maxBodySizeField = new JTextField(String.valueOf(extractionMaxBodyKb));
+        JTextField maxJsonDepthField = new JTextField(String.valueOf(extractionMaxJsonDepth));
+        JTextField maxParamsField = new JTextField(String.valueOf(extractionMaxParams));
+        JCheckBox extractionAsyncCheckBox = new JCheckBox("Extract off HTTP thread", extractionAsync);
+        JCheckBox structuredParamsCheckBox = new JCheckBox("Nested JSON/XML param paths", extractionStructured);
         JButton applyButton = new JButton("Apply");
         applyButton.addActionListener(e -> {
             exclude_extensions = extensionArea.getText().trim();
             savedOutputPath = outputPathField.getText().trim();
             exclude_status_code = excludeStatusCodesField.getText().trim();
             path_parameter_rules = pathParameterRulesArea.getText().trim();
-            compiledPathParameterRules = compilePathParameterRules(path_parameter_rules);
+            pathNormalizer = PathNormalizer.compile(compilePathParameterRules(path_parameter_rules));
+            requestFilter = RequestFilter.compile(exclude_extensions, exclude_status_code);
             autoBypassNoParam = autoBypassCheckBox.isSelected();
+            pathLearningMode = (PathTemplateLearner.Mode) pathLearningModeComboBox.getSelectedItem();
+            pathLearningThreshold = parseIntSetting(pathLearningThresholdField.getText(), 2, PathTemplateLearner.DEFAULT_THRESHOLD, "path learning threshold");
+            pathLearningThresholdField.setText(String.valueOf(pathLearningThreshold));
+            ingestionQueueCapacity = parsePositiveInt(ingestionQueueSizeField.getText(), IngestionPipeline.DEFAULT_CAPACITY, "ingestion queue size");
+            ingestionQueueSizeField.setText(String.valueOf(ingestionQueueCapacity));
+            ingestionBatchSize = parsePositiveInt(batchSizeField.getText(), IngestionPipeline.DEFAULT_BATCH_SIZE, "batch size");
+            batchSizeField.setText(String.valueOf(ingestionBatchSize));
+            ingestionFlushIntervalMillis = parsePositiveInt(flushIntervalField.getText(), IngestionPipeline.DEFAULT_FLUSH_INTERVAL_MILLIS, "flush interval");
+            flushIntervalField.setText(String.valueOf(ingestionFlushIntervalMillis));
+            ingestionDropPolicy = (IngestionPipeline.DropPolicy) dropPolicyComboBox.getSelectedItem();
+            sqliteTuning = new SqliteTuning(
+                    (SqliteTuning.JournalMode) journalModeComboBox.getSelectedItem(),
+                    (SqliteTuning.Synchronous) synchronousComboBox.getSelectedItem(),
+                    parseIntSetting(mmapSizeField.getText(), 0, SqliteTuning.DEFAULT_MMAP_SIZE_MB, "mmap size"),
+                    parsePositiveInt(cacheSizeField.getText(), SqliteTuning.DEFAULT_CACHE_SIZE_MB, "cache size"),
+                    tempStoreMemoryCheckBox.isSelected(),
+                    parseIntSetting(busyTimeoutField.getText(), 0, SqliteTuning.DEFAULT_BUSY_TIMEOUT_MILLIS, "busy timeout"));
+            mmapSizeField.setText(String.valueOf(sqliteTuning.mmapSizeMb()));
+            cacheSizeField.setText(String.valueOf(sqliteTuning.cacheSizeMb()));
+            busyTimeoutField.setText(String.valueOf(sqliteTuning.busyTimeoutMillis()));
+            extractionMaxBodyKb = parsePositiveInt(maxBodySizeField.getText(), ParameterExtractor.DEFAULT_MAX_BODY_KB, "max body size");
+            maxBodySizeField.setText(String.valueOf(extractionMaxBodyKb));
+            extractionMaxJsonDepth = parsePositiveInt(maxJsonDepthField.getText(), ParameterExtractor.DEFAULT_MAX_JSON_DEPTH, "max JSON depth");
+            maxJsonDepthField.setText(String.valueOf(extractionMaxJsonDepth));
+            extractionMaxParams = parsePositiveInt(maxParamsField.getText(), ParameterExtractor.DEFAULT_MAX_PARAMS, "max params");
+            maxParamsField.setText(String.valueOf(extractionMaxParams));
+            extractionAsync = extractionAsyncCheckBox.isSelected();
+            extractionStructured = structuredParamsCheckBox.isSelected();
             saveSettings();
 
-            // Khởi tạo lại CSDL trước để đảm bảo đang làm việc với đúng file
-            databaseManager.close();
-            databaseManager.initialize(savedOutputPath);
-
-            // *** Áp dụng bypass cho dữ liệu cũ ***
-            if (!compiledPathParameterRules.isEmpty() || autoBypassNoParam) {
-                // Chạy trong một luồng riêng để không làm treo giao diện
-                new Thread(() -> {
-                    if (!compiledPathParameterRules.isEmpty()) {
-                        databaseManager.normalizeStoredPaths(this::normalizePath);
+            boolean rewritePaths = pathNormalizer.hasRules() || pathLearningMode == PathTemplateLearner.Mode.AUTO;
+            boolean bypassOldRecords = autoBypassNoParam;
+            // Hộp thoại tiến độ chỉ hiện ra nếu việc chuẩn hóa kéo dài (dự án lớn).
+            ProgressMonitor normalizeProgress = rewritePaths
+                    ? new ProgressMonitor(null, "Normalizing stored API paths...", null, 0, 1)
+                    : null;
+            applyButton.setEnabled(false);
+            // Rút cạn các hàng đợi và mở lại CSDL có thể mất vài giây khi đang tải nặng, nên chạy trên hàng đợi
+            // thao tác CSDL; EDT chỉ quay lại để cập nhật giao diện.
+            databaseTasks.execute(() -> {
+                List<Object[]> rows = null;
+                try {
+                    restartDatabase();
+                    // *** Áp dụng chuẩn hóa path và bypass cho dữ liệu cũ ***
+                    if (rewritePaths) {
+                        databaseManager.normalizeStoredPaths(this::normalizeStoredPath, (done, total) ->
+                                SwingUtilities.invokeLater(() -> {
+                                    normalizeProgress.setMaximum(total);
+                                    normalizeProgress.setProgress(done);
+                                }));
                     }
-                    if (autoBypassNoParam) {
+                    if (bypassOldRecords) {
                         databaseManager.applyAutoBypassToOldRecords();
                     }
-                    // Tải lại dữ liệu trên luồng giao diện sau khi cập nhật xong
-                    SwingUtilities.invokeLater(this::loadDataFromDb);
-                }).start();
-            } else {
-                // Nếu không bật, chỉ cần tải lại dữ liệu như bình thường
-                loadDataFromDb();
-            }
-
-            JOptionPane.showMessageDialog(null, "Settings applied and project reloaded from database.");
+                    if (rewritePaths || bypassOldRecords) {
+                        // Đường dẫn và trạng thái trong CSDL đã thay đổi -> nạp lại chỉ mục.
+                        endpointIndex.reload(databaseManager);
+                    }
+                    rows = loadTableRows();
+                } finally {
+                    List<Object[]> loadedRows = rows;
+                    SwingUtilities.invokeLater(() -> {
+                        if (normalizeProgress != null) {
+                            normalizeProgress.close();
+                        }
+                        if (loadedRows != null) {
+                            showTableRows(loadedRows);
+                        }
+                        applyButton.setEnabled(true);
+                        JOptionPane.showMessageDialog(null, loadedRows != null
+                                ? "Settings applied and project reloaded from database."
+                                : "Failed to apply settings, see the extension error log.");
+                    });
+                }
+            });
         });
-        tabs.addTab("Settings", SettingsPanel.create(extensionArea, outputPathField, browseButton, highlightCheckBox, noteCheckBox, autoBypassCheckBox, applyButton, totalLbl, scannedLbl, rejectedLbl, bypassLbl, unverifiedLbl, excludeStatusCodesField, pathParameterRulesArea));
+        SettingsPanel.Widgets settingsWidgets = new SettingsPanel.Widgets();
+        settingsWidgets.extensionArea = extensionArea;
+        settingsWidgets.outputPathField = outputPathField;
+        settingsWidgets.browseButton = browseButton;
+        settingsWidgets.highlightCheckBox = highlightCheckBox;
+        settingsWidgets.noteCheckBox = noteCheckBox;
+        settingsWidgets.autoBypassCheckBox = autoBypassCheckBox;
+        settingsWidgets.applyButton = applyButton;
+        settingsWidgets.totalLbl = totalLbl;
+        settingsWidgets.scannedLbl = scannedLbl;
+        settingsWidgets.rejectedLbl = rejectedLbl;
+        settingsWidgets.bypassLbl = bypassLbl;
+        settingsWidgets.unverifiedLbl = unverifiedLbl;
+        settingsWidgets.excludeStatusCodesField = excludeStatusCodesField;
+        settingsWidgets.pathParameterRulesArea = pathParameterRulesArea;
+        settingsWidgets.pathLearningModeComboBox = pathLearningModeComboBox;
+        settingsWidgets.pathLearningThresholdField = pathLearningThresholdField;
+        settingsWidgets.ingestionQueueSizeField = ingestionQueueSizeField;
+        settingsWidgets.dropPolicyComboBox = dropPolicyComboBox;
+        settingsWidgets.batchSizeField = batchSizeField;
+        settingsWidgets.flushIntervalField = flushIntervalField;
+        settingsWidgets.ingestionLbl = ingestionLbl;
+        settingsWidgets.pathCacheLbl = pathCacheLbl;
+        settingsWidgets.maxBodySizeField = maxBodySizeField;
+        settingsWidgets.maxJsonDepthField = maxJsonDepthField;
+        settingsWidgets.maxParamsField = maxParamsField;
+        settingsWidgets.extractionAsyncCheckBox = extractionAsyncCheckBox;
+        settingsWidgets.structuredParamsCheckBox = structuredParamsCheckBox;
+        settingsWidgets.extractionLbl = extractionLbl;
+        settingsWidgets.journalModeComboBox = journalModeComboBox;
+        settingsWidgets.synchronousComboBox = synchronousComboBox;
+        settingsWidgets.mmapSizeField = mmapSizeField;
+        settingsWidgets.cacheSizeField = cacheSizeField;
+        settingsWidgets.busyTimeoutField = busyTimeoutField;
+        settingsWidgets.tempStoreMemoryCheckBox = tempStoreMemoryCheckBox;
+        tabs.addTab("Settings", SettingsPanel.create(settingsWidgets));
+
+        metricsPanel = new MetricsPanel(metrics);
+        tabs.addTab("Metrics", metricsPanel.component());
+
+        // Làm mới metrics của hàng đợi ghi mỗi giây.
+        metricsTimer = new javax.swing.Timer(1000, e -> refreshIngestionMetrics());
+        metricsTimer.start();
         
         // Đăng ký tab chính vào giao diện Burp.
         JPanel mainPanel = new JPanel(new BorderLayout());
@@ -534,30 +936,68 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
     /**
      * Xóa dữ liệu cũ trên bảng và tải lại toàn bộ từ CSDL.
-     * Đồng thời cập nhật lại map `modelRowToDbId`.
      */
     private void loadDataFromDb() {
-        tableModel.setRowCount(0);
-        modelRowToDbId.clear();
-        List<Object[]> rows = databaseManager.loadApiData();
-        for (int i = 0; i < rows.size(); i++) {
-            Object[] rowData = rows.get(i);
-            tableModel.addRow(rowData);
-            modelRowToDbId.put(i, (Integer) rowData[8]); // Index của ID
-        }
-        updateStats();
+        showTableRows(loadTableRows());
     }
 
     /**
-     * Kiểm tra xem một đường dẫn có bị loại trừ dựa trên phần mở rộng hay không.
-     * @param path Đường dẫn của request.
-     * @return true nếu bị loại trừ.
+     * Đọc toàn bộ dòng của bảng từ CSDL; có thể chạy ngoài EDT.
      */
-    private boolean isExcludedByExtension(String path) {
-        if (exclude_extensions == null || exclude_extensions.isBlank()) return false;
-        return Arrays.stream(exclude_extensions.replace(" ", "").split(","))
-                     .map(String::trim)
-                     .anyMatch(ext -> !ext.isEmpty() && path.toLowerCase().endsWith(ext));
+    private List<Object[]> loadTableRows() {
+        // Bảng sắp được nạp lại toàn bộ nên các thay đổi đang chờ (có thể thuộc về file CSDL cũ) không còn cần thiết.
+        // Xóa trước khi đọc để các thay đổi ghi sau lần đọc này vẫn được áp dụng lên bảng mới.
+        synchronized (pendingRowChanges) {
+            pendingRowChanges.clear();
+        }
+        return databaseManager.loadApiData();
+    }
+
+    /**
+     * Thay toàn bộ dòng của bảng. Phải được gọi trên EDT.
+     */
+    private void showTableRows(List<Object[]> rows) {
+        long start = System.nanoTime();
+        tableModel.setRows(rows);
+        updateStats();
+        reloadStage.recordSince(start);
+    }
+
+    /**
+     * Cập nhật nhãn metrics của hàng đợi ghi, bộ nhớ đệm chuẩn hóa path và bước trích xuất tham số.
+     */
+    private void refreshIngestionMetrics() {
+        IngestionPipeline pipeline = ingestionPipeline;
+        if (pipeline != null) {
+            ingestionLbl.setText(pipeline.metricsSummary());
+        }
+        PathNormalizer normalizer = pathNormalizer;
+        pathCacheLbl.setText(normalizer.hasRules() ? normalizer.cache().metricsSummary() : "Path Cache: no path parameter rules");
+        extractionLbl.setText(parameterExtractor.metricsSummary());
+        metricsPanel.refresh();
+    }
+
+    /**
+     * Đọc một số nguyên dương từ ô nhập/cài đặt, trả về giá trị mặc định nếu không hợp lệ.
+     */
+    private int parsePositiveInt(String text, int defaultValue, String settingName) {
+        return parseIntSetting(text, 1, defaultValue, settingName);
+    }
+
+    /**
+     * Đọc một số nguyên không nhỏ hơn {@code minValue} từ ô nhập/cài đặt, trả về giá trị mặc định nếu không hợp lệ.
+     */
+    private int parseIntSetting(String text, int minValue, int defaultValue, String settingName) {
+        try {
+            int value = Integer.parseInt(text.trim());
+            if (value >= minValue) {
+                return value;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            // Bỏ qua, dùng giá trị mặc định bên dưới.
+        }
+        api.logging().logToError("Invalid " + settingName + ": " + text + ", using " + defaultValue);
+        return defaultValue;
     }
 
     /**
@@ -565,26 +1005,33 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
      * Ví dụ: /api/report/1684050854912458752/list -> /api/report/{id}/list.
      */
     private String normalizePath(String path) {
-        if (path == null || path.isBlank() || compiledPathParameterRules.isEmpty()) {
-            return path;
-        }
+        return pathNormalizer.normalize(path);
+    }
 
-        String[] segments = path.split("/", -1);
-        boolean changed = false;
-        for (int i = 0; i < segments.length; i++) {
-            String segment = segments[i];
-            if (segment.isEmpty()) {
-                continue;
-            }
-            for (PathParameterRule rule : compiledPathParameterRules) {
-                if (rule.matches(segment)) {
-                    segments[i] = rule.placeholder();
-                    changed = true;
-                    break;
-                }
+    /**
+     * Chuẩn hóa path của một API đã lưu: áp dụng rule rồi các template đã học (không học thêm).
+     */
+    private String normalizeStoredPath(String host, String path) {
+        return pathTemplateLearner.templateFor(host, normalizePath(path));
+    }
+
+    /**
+     * Tạo bộ tự học mới theo cài đặt hiện tại và cho nó học lại từ các API đã có trong chỉ mục.
+     */
+    private void rebuildPathTemplateLearner() {
+        PathTemplateLearner.Mode mode = pathLearningMode;
+        PathTemplateLearner learner = new PathTemplateLearner(mode, pathLearningThreshold, (host, template) -> {
+            if (mode == PathTemplateLearner.Mode.AUTO) {
+                hostsWithNewTemplates.add(host);
+                api.logging().logToOutput("Learned path template: " + host + " " + template);
+            } else {
+                api.logging().logToOutput("Suggested path template: " + host + " " + template + " (add a path parameter rule or set path learning to AUTO)");
             }
+        });
+        if (learner.isEnabled()) {
+            endpointIndex.forEachHostPath(learner::observe);
         }
-        return changed ? String.join("/", segments) : path;
+        pathTemplateLearner = learner;
     }
 
     private List<PathParameterRule> compilePathParameterRules(String rulesText) {
@@ -607,9 +1054,9 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
             String placeholder = normalizePlaceholder(line.substring(0, separatorIndex).trim());
             String spec = line.substring(separatorIndex + 1).trim();
-            Pattern pattern = compilePathParameterPattern(spec);
-            if (pattern != null) {
-                rules.add(new PathParameterRule(placeholder, pattern));
+            PathParameterRule rule = compilePathParameterRule(placeholder, spec);
+            if (rule != null) {
+                rules.add(rule);
             }
         }
         return rules;
@@ -622,11 +1069,11 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
         return "{" + placeholder.replace("{", "").replace("}", "") + "}";
     }
 
-    private Pattern compilePathParameterPattern(String spec) {
+    private PathParameterRule compilePathParameterRule(String placeholder, String spec) {
         String lowerSpec = spec.toLowerCase(Locale.ROOT);
         if (lowerSpec.startsWith("regex:")) {
             try {
-                return Pattern.compile(spec.substring("regex:".length()));
+                return PathParameterRule.regex(placeholder, Pattern.compile(spec.substring("regex:".length())));
             } catch (PatternSyntaxException e) {
                 api.logging().logToError("Invalid path parameter regex rule: " + spec + " - " + e.getMessage());
                 return null;
@@ -649,12 +1096,12 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
             }
         }
 
-        String quantifier = length == null ? "+" : "{" + length + "}";
+        int requiredLength = length == null ? 0 : length;
         return switch (type) {
-            case "number", "numeric", "digits" -> Pattern.compile("[0-9]" + quantifier);
-            case "hex" -> Pattern.compile("[0-9a-fA-F]" + quantifier);
-            case "uuid" -> Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
-            case "alnum", "alpha_numeric" -> Pattern.compile("[0-9a-zA-Z]" + quantifier);
+            case "number", "numeric", "digits" -> PathParameterRule.builtIn(placeholder, PathParameterRule.Type.DIGITS, requiredLength);
+            case "hex" -> PathParameterRule.builtIn(placeholder, PathParameterRule.Type.HEX, requiredLength);
+            case "uuid" -> PathParameterRule.builtIn(placeholder, PathParameterRule.Type.UUID, 0);
+            case "alnum", "alpha_numeric" -> PathParameterRule.builtIn(placeholder, PathParameterRule.Type.ALNUM, requiredLength);
             default -> {
                 api.logging().logToError("Unsupported path parameter rule type: " + spec);
                 yield null;
@@ -703,8 +1150,8 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
                     StringBuilder sb = new StringBuilder();
                     for (int viewRow : selectedRows) {
                         int modelRow = table.convertRowIndexToModel(viewRow);
-                        Object value = tableModel.getValueAt(modelRow, 2);
-                        if (value != null) sb.append(value.toString()).append("\n");
+                        String value = tableModel.pathAt(modelRow);
+                        if (value != null) sb.append(value).append("\n");
                     }
                     StringSelection selection = new StringSelection(sb.toString().trim());
                     Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, null);
@@ -723,11 +1170,11 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
                 StringBuilder sb = new StringBuilder();
                 for (int viewRow : selectedRows) {
                     int modelRow = table.convertRowIndexToModel(viewRow);
-                    String method = (String) tableModel.getValueAt(modelRow, 0);
-                    String path = (String) tableModel.getValueAt(modelRow, 2);
-                    Integer id = (Integer) tableModel.getValueAt(modelRow, 8);
+                    String method = tableModel.methodAt(modelRow);
+                    String path = tableModel.pathAt(modelRow);
+                    int id = tableModel.idAt(modelRow);
                     
-                    if (method != null && path != null && id != null) {
+                    if (method != null && path != null) {
                         // Lấy tất cả params từ DB bằng id
                         Set<String> allParams = databaseManager.getAllParamsById(id);
                         
@@ -797,7 +1244,7 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
             public void removeUpdate(DocumentEvent e) { filter(); }
             public void changedUpdate(DocumentEvent e) { filter(); }
             private void filter() {
-                handler.apply(searchField.getText().trim(), (TableRowSorter<DefaultTableModel>) table.getRowSorter());
+                handler.apply(searchField.getText().trim(), (TableRowSorter<ApiTableModel>) table.getRowSorter());
             }
         });
         return panel;
@@ -805,7 +1252,7 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
     @FunctionalInterface
     interface SearchHandler {
-        void apply(String keyword, TableRowSorter<DefaultTableModel> sorter);
+        void apply(String keyword, TableRowSorter<ApiTableModel> sorter);
     }
     
     /**
@@ -826,6 +1273,23 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
             props.setProperty("autoBypassNoParam", String.valueOf(autoBypassNoParam));
             props.setProperty("exclude_status_code", valueOrEmpty(exclude_status_code));
             props.setProperty("path_parameter_rules", valueOrEmpty(path_parameter_rules));
+            props.setProperty("ingestion_queue_capacity", String.valueOf(ingestionQueueCapacity));
+            props.setProperty("ingestion_drop_policy", ingestionDropPolicy.name());
+            props.setProperty("ingestion_batch_size", String.valueOf(ingestionBatchSize));
+            props.setProperty("ingestion_flush_interval_ms", String.valueOf(ingestionFlushIntervalMillis));
+            props.setProperty("sqlite_journal_mode", sqliteTuning.journalMode().name());
+            props.setProperty("sqlite_synchronous", sqliteTuning.synchronous().name());
+            props.setProperty("sqlite_mmap_size_mb", String.valueOf(sqliteTuning.mmapSizeMb()));
+            props.setProperty("sqlite_cache_size_mb", String.valueOf(sqliteTuning.cacheSizeMb()));
+            props.setProperty("sqlite_temp_store_memory", String.valueOf(sqliteTuning.tempStoreMemory()));
+            props.setProperty("sqlite_busy_timeout_ms", String.valueOf(sqliteTuning.busyTimeoutMillis()));
+            props.setProperty("path_learning_mode", pathLearningMode.name());
+            props.setProperty("path_learning_threshold", String.valueOf(pathLearningThreshold));
+            props.setProperty("extraction_max_body_kb", String.valueOf(extractionMaxBodyKb));
+            props.setProperty("extraction_max_json_depth", String.valueOf(extractionMaxJsonDepth));
+            props.setProperty("extraction_max_params", String.valueOf(extractionMaxParams));
+            props.setProperty("extraction_async", String.valueOf(extractionAsync));
+            props.setProperty("extraction_structured", String.valueOf(extractionStructured));
             
             StringWriter writer = new StringWriter();
             props.store(writer, null);
@@ -869,51 +1333,44 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
                 autoBypassNoParam = Boolean.parseBoolean(props.getProperty("autoBypassNoParam", "false"));
                 exclude_status_code = props.getProperty("exclude_status_code", "");
                 path_parameter_rules = props.getProperty("path_parameter_rules", "");
+                ingestionQueueCapacity = parsePositiveInt(props.getProperty("ingestion_queue_capacity", String.valueOf(IngestionPipeline.DEFAULT_CAPACITY)), IngestionPipeline.DEFAULT_CAPACITY, "ingestion queue size");
+                ingestionBatchSize = parsePositiveInt(props.getProperty("ingestion_batch_size", String.valueOf(IngestionPipeline.DEFAULT_BATCH_SIZE)), IngestionPipeline.DEFAULT_BATCH_SIZE, "batch size");
+                ingestionFlushIntervalMillis = parsePositiveInt(props.getProperty("ingestion_flush_interval_ms", String.valueOf(IngestionPipeline.DEFAULT_FLUSH_INTERVAL_MILLIS)), IngestionPipeline.DEFAULT_FLUSH_INTERVAL_MILLIS, "flush interval");
+                ingestionDropPolicy = IngestionPipeline.DropPolicy.fromString(props.getProperty("ingestion_drop_policy"));
+                pathLearningMode = PathTemplateLearner.Mode.fromString(props.getProperty("path_learning_mode"));
+                pathLearningThreshold = parseIntSetting(props.getProperty("path_learning_threshold", String.valueOf(PathTemplateLearner.DEFAULT_THRESHOLD)), 2, PathTemplateLearner.DEFAULT_THRESHOLD, "path learning threshold");
+                extractionMaxBodyKb = parsePositiveInt(props.getProperty("extraction_max_body_kb", String.valueOf(ParameterExtractor.DEFAULT_MAX_BODY_KB)), ParameterExtractor.DEFAULT_MAX_BODY_KB, "max body size");
+                extractionMaxJsonDepth = parsePositiveInt(props.getProperty("extraction_max_json_depth", String.valueOf(ParameterExtractor.DEFAULT_MAX_JSON_DEPTH)), ParameterExtractor.DEFAULT_MAX_JSON_DEPTH, "max JSON depth");
+                extractionMaxParams = parsePositiveInt(props.getProperty("extraction_max_params", String.valueOf(ParameterExtractor.DEFAULT_MAX_PARAMS)), ParameterExtractor.DEFAULT_MAX_PARAMS, "max params");
+                extractionAsync = Boolean.parseBoolean(props.getProperty("extraction_async", "false"));
+                extractionStructured = Boolean.parseBoolean(props.getProperty("extraction_structured", "false"));
+                sqliteTuning = new SqliteTuning(
+                        SqliteTuning.JournalMode.fromString(props.getProperty("sqlite_journal_mode")),
+                        SqliteTuning.Synchronous.fromString(props.getProperty("sqlite_synchronous")),
+                        parseIntSetting(props.getProperty("sqlite_mmap_size_mb", String.valueOf(SqliteTuning.DEFAULT_MMAP_SIZE_MB)), 0, SqliteTuning.DEFAULT_MMAP_SIZE_MB, "mmap size"),
+                        parsePositiveInt(props.getProperty("sqlite_cache_size_mb", String.valueOf(SqliteTuning.DEFAULT_CACHE_SIZE_MB)), SqliteTuning.DEFAULT_CACHE_SIZE_MB, "cache size"),
+                        Boolean.parseBoolean(props.getProperty("sqlite_temp_store_memory", "true")),
+                        parseIntSetting(props.getProperty("sqlite_busy_timeout_ms", String.valueOf(SqliteTuning.DEFAULT_BUSY_TIMEOUT_MILLIS)), 0, SqliteTuning.DEFAULT_BUSY_TIMEOUT_MILLIS, "busy timeout"));
             }
             if (path_parameter_rules == null) {
                 path_parameter_rules = "";
             }
-            compiledPathParameterRules = compilePathParameterRules(path_parameter_rules);
+            pathNormalizer = PathNormalizer.compile(compilePathParameterRules(path_parameter_rules));
+            requestFilter = RequestFilter.compile(exclude_extensions, exclude_status_code);
+            parameterExtractor = new ParameterExtractor(extractionMaxBodyKb, extractionMaxJsonDepth, extractionMaxParams, extractionAsync, extractionStructured);
         } catch (Exception e) {
             api.logging().logToError("Failed to load settings: " + e.getMessage());
         }
     }
-    /**
-     * Kiểm tra xem một mã trạng thái HTTP nhất định có nên bị loại trừ dựa trên cài đặt của người dùng hay không.
-     * @param statusCode Mã trạng thái HTTP cần kiểm tra.
-     * @return true nếu mã trạng thái nằm trong danh sách bị loại trừ, ngược lại là false.
-     */
-    private boolean isExcludedStatusCode(int statusCode) {
-        if (exclude_status_code == null || exclude_status_code.isBlank()) {
-            return false;
-        }
-
-        Set<Integer> excludedCodes = new HashSet<>();
-        try {
-            for (String s : exclude_status_code.split(",")) {
-                try {
-                    excludedCodes.add(Integer.parseInt(s.trim()));
-                } catch (NumberFormatException e) {
-                }
-            }
-        } catch (Exception e) {
-            return false;
-        }
-
-        return excludedCodes.contains(statusCode);
-    }
     
     /**
-     * Tính toán và cập nhật các nhãn thống kê.
+     * Cập nhật các nhãn thống kê từ bộ đếm của model (O(1), không duyệt bảng).
      */
     private void updateStats() {
         int total = tableModel.getRowCount();
-        int scanned = 0, rejected = 0, bypass = 0;
-        for (int i = 0; i < total; i++) {
-            if (Boolean.TRUE.equals(tableModel.getValueAt(i, 4))) scanned++;
-            if (Boolean.TRUE.equals(tableModel.getValueAt(i, 5))) rejected++;
-            if (Boolean.TRUE.equals(tableModel.getValueAt(i, 6))) bypass++;
-        }
+        int scanned = tableModel.scannedCount();
+        int rejected = tableModel.rejectedCount();
+        int bypass = tableModel.bypassedCount();
         totalLbl.setText("Total: " + total);
         scannedLbl.setText("Scanned: " + scanned);
         rejectedLbl.setText("Rejected: " + rejected);
@@ -924,10 +1381,23 @@ public class RecheckScanApiExtension implements BurpExtension, ExtensionUnloadin
 
     /**
      * Được gọi khi extension bị gỡ bỏ.
-     * Đóng kết nối cơ sở dữ liệu để giải phóng tài nguyên.
+     * Ghi nốt các sự kiện còn trong hàng đợi rồi đóng kết nối cơ sở dữ liệu để giải phóng tài nguyên.
      */
     @Override
     public void extensionUnloaded() {
+        if (metricsTimer != null) {
+            metricsTimer.stop();
+        }
+        rowRefreshScheduler.stop();
+        // Ghi nốt các thay đổi trạng thái người dùng vừa tick (và việc nền đang chạy) trước khi đóng CSDL.
+        backgroundExecutor.shutdown();
+        try {
+            backgroundExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopExtractionExecutor();
+        stopIngestionPipeline();
         databaseManager.close();
     }
 }
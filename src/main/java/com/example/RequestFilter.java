@@ -0,0 +1,133 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bộ lọc loại trừ request theo đuôi path và theo status code, được biên dịch một lần từ cài đặt.
+ * <p>
+ * Chuỗi cài đặt chỉ được tách/parse khi người dùng bấm Apply hoặc khi tải cài đặt; luồng proxy chỉ
+ * duyệt một cây hậu tố (trie trên các ký tự đảo ngược) và đọc một bit, không tách chuỗi, không cấp phát.
+ * Đối tượng bất biến nên có thể thay thế nguyên khối qua một trường volatile.
+ */
+final class RequestFilter {
+    /**
+     * Status code HTTP chỉ có ba chữ số; các giá trị lớn hơn không bao giờ khớp.
+     */
+    private static final int MAX_STATUS_CODE = 999;
+
+    static final RequestFilter EMPTY = compile(null, null);
+
+    private final SuffixNode extensionRoot;
+    private final BitSet excludedStatusCodes;
+
+    private RequestFilter(SuffixNode extensionRoot, BitSet excludedStatusCodes) {
+        this.extensionRoot = extensionRoot;
+        this.excludedStatusCodes = excludedStatusCodes;
+    }
+
+    /**
+     * Biên dịch cài đặt thành bộ lọc.
+     *
+     * @param excludeExtensions Danh sách đuôi cách nhau bởi dấu phẩy, ví dụ ".js, .css,.png" (không phân biệt hoa thường).
+     * @param excludeStatusCodes Danh sách status code cách nhau bởi dấu phẩy; giá trị không phải số bị bỏ qua.
+     */
+    static RequestFilter compile(String excludeExtensions, String excludeStatusCodes) {
+        SuffixNode root = new SuffixNode();
+        if (excludeExtensions != null) {
+            for (String raw : excludeExtensions.replace(" ", "").split(",")) {
+                String ext = raw.trim().toLowerCase();
+                if (!ext.isEmpty()) {
+                    root.addReversed(ext);
+                }
+            }
+        }
+
+        BitSet codes = new BitSet(MAX_STATUS_CODE + 1);
+        if (excludeStatusCodes != null) {
+            for (String raw : excludeStatusCodes.split(",")) {
+                try {
+                    int code = Integer.parseInt(raw.trim());
+                    if (code >= 0 && code <= MAX_STATUS_CODE) {
+                        codes.set(code);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Bỏ qua giá trị không hợp lệ như trước đây.
+                }
+            }
+        }
+        return new RequestFilter(root, codes);
+    }
+
+    /**
+     * Kiểm tra path có kết thúc bằng một trong các đuôi bị loại trừ hay không (không phân biệt hoa thường).
+     */
+    boolean isExcludedByExtension(String path) {
+        if (path == null || !extensionRoot.hasChildren()) {
+            return false;
+        }
+        SuffixNode node = extensionRoot;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            node = node.child(Character.toLowerCase(path.charAt(i)));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Kiểm tra status code có nằm trong danh sách bị loại trừ hay không.
+     */
+    boolean isExcludedStatusCode(int statusCode) {
+        return statusCode >= 0 && statusCode <= MAX_STATUS_CODE && excludedStatusCodes.get(statusCode);
+    }
+
+    /**
+     * Một nút của trie hậu tố. Số nhánh mỗi nút rất nhỏ (vài ký tự) nên tìm tuyến tính trên mảng char
+     * nhanh hơn và gọn hơn một HashMap.
+     */
+    private static final class SuffixNode {
+        private char[] keys = new char[0];
+        private SuffixNode[] children = new SuffixNode[0];
+        /**
+         * true nếu đường đi từ gốc tới nút này là một đuôi bị loại trừ hoàn chỉnh.
+         */
+        private boolean terminal;
+
+        SuffixNode child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        boolean hasChildren() {
+            return keys.length > 0;
+        }
+
+        void addReversed(String suffix) {
+            SuffixNode node = this;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                char c = suffix.charAt(i);
+                SuffixNode next = node.child(c);
+                if (next == null) {
+                    next = new SuffixNode();
+                    int n = node.keys.length;
+                    node.keys = Arrays.copyOf(node.keys, n + 1);
+                    node.children = Arrays.copyOf(node.children, n + 1);
+                    node.keys[n] = c;
+                    node.children[n] = next;
+                }
+                node = next;
+            }
+            node.terminal = true;
+        }
+    }
+}
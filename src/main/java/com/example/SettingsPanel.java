@@ -14,34 +14,64 @@ import java.awt.*;
  */
 public class SettingsPanel {
 
+    /**
+     * Các thành phần giao diện của tab Settings. Chúng vẫn được tạo và gắn xử lý sự kiện trong
+     * {@link RecheckScanApiExtension}; đối tượng này chỉ gom chúng lại để truyền cho {@link #create(Widgets)}.
+     */
+    static final class Widgets {
+        // --- Project Settings ---
+        JTextArea extensionArea;
+        JTextField outputPathField;
+        JButton browseButton;
+        JTextField excludeStatusCodesField;
+        JTextArea pathParameterRulesArea;
+        JComboBox<?> pathLearningModeComboBox;
+        JTextField pathLearningThresholdField;
+
+        // --- Tùy chọn và nút Apply ---
+        JCheckBox highlightCheckBox;
+        JCheckBox noteCheckBox;
+        JCheckBox autoBypassCheckBox;
+        JButton applyButton;
+
+        // --- Thống kê ---
+        JLabel totalLbl;
+        JLabel scannedLbl;
+        JLabel rejectedLbl;
+        JLabel bypassLbl;
+        JLabel unverifiedLbl;
+        JLabel ingestionLbl;
+        JLabel pathCacheLbl;
+        JLabel extractionLbl;
+
+        // --- Hàng đợi ghi ---
+        JTextField ingestionQueueSizeField;
+        JComboBox<?> dropPolicyComboBox;
+        JTextField batchSizeField;
+        JTextField flushIntervalField;
+
+        // --- Trích xuất tham số ---
+        JTextField maxBodySizeField;
+        JTextField maxJsonDepthField;
+        JTextField maxParamsField;
+        JCheckBox extractionAsyncCheckBox;
+        JCheckBox structuredParamsCheckBox;
+
+        // --- SQLite ---
+        JComboBox<?> journalModeComboBox;
+        JComboBox<?> synchronousComboBox;
+        JTextField mmapSizeField;
+        JTextField cacheSizeField;
+        JTextField busyTimeoutField;
+        JCheckBox tempStoreMemoryCheckBox;
+    }
+
     /**
      * Phương thức tĩnh tạo và trả về một JPanel đã được cấu hình hoàn chỉnh cho tab Settings.
-     * @param extensionArea Vùng nhập các extension cần loại trừ.
-     * @param outputPathField Trường nhập đường dẫn lưu file log/db.
-     * @param browseButton Nút để mở cửa sổ chọn file.
-     * @param highlightCheckBox Checkbox để bật/tắt highlight.
-     * @param noteCheckBox Checkbox để bật/tắt thêm note.
-     * @param autoBypassCheckBox Checkbox để bật/tắt tự động bypass.
-     * @param applyButton Nút để áp dụng và lưu cài đặt.
-     * @param totalLbl, scannedLbl, etc. Các nhãn để hiển thị thống kê.
-     * @param excludeStatusCodesField Trường nhập các status code cần loại trừ.
+     * @param w Các thành phần giao diện cần sắp xếp (xem {@link Widgets}).
      * @return Một JPanel chứa toàn bộ giao diện của tab Settings.
      */
-    public static JPanel create(
-            JTextArea  extensionArea,
-            JTextField outputPathField,
-            JButton    browseButton,
-            JCheckBox  highlightCheckBox,
-            JCheckBox  noteCheckBox,
-            JCheckBox  autoBypassCheckBox,
-            JButton    applyButton,
-            JLabel     totalLbl,
-            JLabel     scannedLbl,
-            JLabel     rejectedLbl,
-            JLabel     bypassLbl,
-            JLabel     unverifiedLbl,
-            JTextField excludeStatusCodesField,
-            JTextArea  pathParameterRulesArea) {
+    public static JPanel create(Widgets w) {
 
         /* ========= PANEL GỐC (ROOT) ========= */
         JPanel settingsPanel = new JPanel();
@@ -62,10 +92,10 @@ public class SettingsPanel {
         // Panel cho đường dẫn output và nút Browse
         JPanel outputPathPanel = new JPanel(new BorderLayout(5, 0));
         outputPathPanel.add(new JLabel("Log/DB Output Path: "), BorderLayout.WEST);
-        outputPathPanel.add(outputPathField, BorderLayout.CENTER);
-        outputPathPanel.add(browseButton, BorderLayout.EAST);
+        outputPathPanel.add(w.outputPathField, BorderLayout.CENTER);
+        outputPathPanel.add(w.browseButton, BorderLayout.EAST);
         // Giới hạn chiều cao tối đa để không bị giãn ra quá lớn.
-        outputPathPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, outputPathField.getPreferredSize().height));
+        outputPathPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, w.outputPathField.getPreferredSize().height));
         outputPathPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
         projectSettingsPanel.add(outputPathPanel);
         projectSettingsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
@@ -73,9 +103,9 @@ public class SettingsPanel {
         // Panel cho Exclude Extensions
         JPanel excludeExtensionPanel = new JPanel(new BorderLayout(5, 0));
         excludeExtensionPanel.add(new JLabel("Exclude Extensions (comma separated): "), BorderLayout.WEST);
-        extensionArea.setRows(1);
-        JScrollPane extScroll = new JScrollPane(extensionArea);
-        extScroll.setMaximumSize(new Dimension(Integer.MAX_VALUE, extensionArea.getPreferredSize().height + 10));
+        w.extensionArea.setRows(1);
+        JScrollPane extScroll = new JScrollPane(w.extensionArea);
+        extScroll.setMaximumSize(new Dimension(Integer.MAX_VALUE, w.extensionArea.getPreferredSize().height + 10));
         extScroll.setAlignmentX(Component.LEFT_ALIGNMENT);
         excludeExtensionPanel.add(extScroll, BorderLayout.CENTER);
         excludeExtensionPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, excludeExtensionPanel.getPreferredSize().height));
@@ -86,8 +116,8 @@ public class SettingsPanel {
         // Panel cho Exclude Status Codes
         JPanel excludeStatusCodePanel = new JPanel(new BorderLayout(5, 0));
         excludeStatusCodePanel.add(new JLabel("Exclude Status Codes (comma separated): "), BorderLayout.WEST);
-        excludeStatusCodePanel.add(excludeStatusCodesField, BorderLayout.CENTER);
-        excludeStatusCodePanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, excludeStatusCodesField.getPreferredSize().height));
+        excludeStatusCodePanel.add(w.excludeStatusCodesField, BorderLayout.CENTER);
+        excludeStatusCodePanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, w.excludeStatusCodesField.getPreferredSize().height));
         excludeStatusCodePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
         projectSettingsPanel.add(excludeStatusCodePanel);
         projectSettingsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
@@ -95,9 +125,9 @@ public class SettingsPanel {
         // Panel cho rule nhận diện path parameter động
         JPanel pathParameterRulesPanel = new JPanel(new BorderLayout(5, 0));
         pathParameterRulesPanel.add(new JLabel("URL Path Parameter Rules: "), BorderLayout.WEST);
-        pathParameterRulesArea.setRows(3);
-        pathParameterRulesArea.setToolTipText("One rule per line.");
-        JScrollPane pathRuleScroll = new JScrollPane(pathParameterRulesArea);
+        w.pathParameterRulesArea.setRows(3);
+        w.pathParameterRulesArea.setToolTipText("One rule per line.");
+        JScrollPane pathRuleScroll = new JScrollPane(w.pathParameterRulesArea);
         JLabel pathRuleHelpLabel = new JLabel("One rule per line. Examples: {id}=number:19, {uuid}=uuid, {hash}=hex:32, {slug}=regex:[a-z0-9-]+");
         pathRuleHelpLabel.setFont(pathRuleHelpLabel.getFont().deriveFont(Font.PLAIN, 11f));
         pathRuleHelpLabel.setForeground(UIManager.getColor("Label.disabledForeground"));
@@ -110,6 +140,19 @@ public class SettingsPanel {
         pathParameterRulesPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
         projectSettingsPanel.add(pathParameterRulesPanel);
         projectSettingsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+
+        // Panel cho chế độ tự học path parameter
+        JPanel pathLearningPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        pathLearningPanel.add(new JLabel("Learn Path Parameters: "));
+        w.pathLearningModeComboBox.setToolTipText("SUGGEST logs learned templates, AUTO also applies them to recorded paths.");
+        pathLearningPanel.add(w.pathLearningModeComboBox);
+        pathLearningPanel.add(new JLabel("Distinct Values Threshold: "));
+        w.pathLearningThresholdField.setColumns(5);
+        pathLearningPanel.add(w.pathLearningThresholdField);
+        pathLearningPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, pathLearningPanel.getPreferredSize().height));
+        pathLearningPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        projectSettingsPanel.add(pathLearningPanel);
+        projectSettingsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
         
         centerPanel.add(projectSettingsPanel);
         centerPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Thêm khoảng trống giữa các nhóm
@@ -120,11 +163,94 @@ public class SettingsPanel {
         controlsPanel.setBorder(createTitledBorder("Controls"));
 
         // Thêm trực tiếp các checkbox vào panel.
-        controlsPanel.add(highlightCheckBox);
-        controlsPanel.add(noteCheckBox);
-        controlsPanel.add(autoBypassCheckBox);
+        controlsPanel.add(w.highlightCheckBox);
+        controlsPanel.add(w.noteCheckBox);
+        controlsPanel.add(w.autoBypassCheckBox);
         
         centerPanel.add(controlsPanel);
+        centerPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+
+        // --- Nhóm Performance ---
+        JPanel performancePanel = new JPanel();
+        performancePanel.setLayout(new BoxLayout(performancePanel, BoxLayout.Y_AXIS));
+        performancePanel.setBorder(createTitledBorder("Performance"));
+
+        // Panel cho dung lượng hàng đợi ghi và chính sách khi đầy
+        JPanel ingestionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        ingestionPanel.add(new JLabel("Ingestion Queue Size: "));
+        w.ingestionQueueSizeField.setColumns(8);
+        ingestionPanel.add(w.ingestionQueueSizeField);
+        ingestionPanel.add(new JLabel("When Full: "));
+        ingestionPanel.add(w.dropPolicyComboBox);
+        ingestionPanel.add(new JLabel("Batch Size: "));
+        w.batchSizeField.setColumns(6);
+        ingestionPanel.add(w.batchSizeField);
+        ingestionPanel.add(new JLabel("Flush Interval (ms): "));
+        w.flushIntervalField.setColumns(6);
+        ingestionPanel.add(w.flushIntervalField);
+        ingestionPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, ingestionPanel.getPreferredSize().height));
+        ingestionPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        performancePanel.add(ingestionPanel);
+        performancePanel.add(Box.createRigidArea(new Dimension(0, 5)));
+
+        // Panel cho các giới hạn trích xuất tham số
+        JPanel extractionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        extractionPanel.add(new JLabel("Max Body (KB): "));
+        w.maxBodySizeField.setColumns(6);
+        extractionPanel.add(w.maxBodySizeField);
+        extractionPanel.add(new JLabel("Max JSON Depth: "));
+        w.maxJsonDepthField.setColumns(4);
+        extractionPanel.add(w.maxJsonDepthField);
+        extractionPanel.add(new JLabel("Max Params: "));
+        w.maxParamsField.setColumns(5);
+        extractionPanel.add(w.maxParamsField);
+        extractionPanel.add(w.extractionAsyncCheckBox);
+        extractionPanel.add(w.structuredParamsCheckBox);
+        extractionPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, extractionPanel.getPreferredSize().height));
+        extractionPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        performancePanel.add(extractionPanel);
+        performancePanel.add(Box.createRigidArea(new Dimension(0, 5)));
+
+        // Panel cho các PRAGMA của SQLite
+        JPanel sqlitePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        sqlitePanel.add(new JLabel("SQLite Journal: "));
+        sqlitePanel.add(w.journalModeComboBox);
+        sqlitePanel.add(new JLabel("Synchronous: "));
+        sqlitePanel.add(w.synchronousComboBox);
+        sqlitePanel.add(new JLabel("mmap (MB): "));
+        w.mmapSizeField.setColumns(5);
+        sqlitePanel.add(w.mmapSizeField);
+        sqlitePanel.add(new JLabel("Cache (MB): "));
+        w.cacheSizeField.setColumns(5);
+        sqlitePanel.add(w.cacheSizeField);
+        sqlitePanel.add(new JLabel("Busy Timeout (ms): "));
+        w.busyTimeoutField.setColumns(6);
+        sqlitePanel.add(w.busyTimeoutField);
+        sqlitePanel.add(w.tempStoreMemoryCheckBox);
+        sqlitePanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, sqlitePanel.getPreferredSize().height));
+        sqlitePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        performancePanel.add(sqlitePanel);
+        performancePanel.add(Box.createRigidArea(new Dimension(0, 5)));
+
+        // Nhãn metrics của hàng đợi ghi
+        w.ingestionLbl.setFont(w.ingestionLbl.getFont().deriveFont(Font.PLAIN, 11f));
+        w.ingestionLbl.setAlignmentX(Component.LEFT_ALIGNMENT);
+        w.ingestionLbl.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+        performancePanel.add(w.ingestionLbl);
+
+        // Nhãn metrics của bộ nhớ đệm chuẩn hóa path
+        w.pathCacheLbl.setFont(w.pathCacheLbl.getFont().deriveFont(Font.PLAIN, 11f));
+        w.pathCacheLbl.setAlignmentX(Component.LEFT_ALIGNMENT);
+        w.pathCacheLbl.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+        performancePanel.add(w.pathCacheLbl);
+
+        // Nhãn metrics của bước trích xuất tham số
+        w.extractionLbl.setFont(w.extractionLbl.getFont().deriveFont(Font.PLAIN, 11f));
+        w.extractionLbl.setAlignmentX(Component.LEFT_ALIGNMENT);
+        w.extractionLbl.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+        performancePanel.add(w.extractionLbl);
+
+        centerPanel.add(performancePanel);
 
         /* ========= PANEL PHÍA ĐÔNG (EAST) - Chứa thống kê ========= */
         JPanel eastPanel = new JPanel(new BorderLayout());
@@ -136,8 +262,8 @@ public class SettingsPanel {
         statsPanel.setPreferredSize(new Dimension(220, 200));
 
         // Thiết lập font và border cho các label thống kê.
-        Font statFont = totalLbl.getFont().deriveFont(Font.PLAIN, 15f);
-        for (JLabel lbl : new JLabel[]{totalLbl, scannedLbl, rejectedLbl, bypassLbl, unverifiedLbl}) {
+        Font statFont = w.totalLbl.getFont().deriveFont(Font.PLAIN, 15f);
+        for (JLabel lbl : new JLabel[]{w.totalLbl, w.scannedLbl, w.rejectedLbl, w.bypassLbl, w.unverifiedLbl}) {
             lbl.setFont(statFont);
             lbl.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
             statsPanel.add(lbl);
@@ -148,9 +274,9 @@ public class SettingsPanel {
 
         /* ========= PANEL PHÍA NAM (SOUTH) - Chứa nút Apply ========= */
         JPanel southPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        applyButton.setPreferredSize(new Dimension(150, 32));
-        applyButton.setFont(applyButton.getFont().deriveFont(Font.BOLD, 13f));
-        southPanel.add(applyButton);
+        w.applyButton.setPreferredSize(new Dimension(150, 32));
+        w.applyButton.setFont(w.applyButton.getFont().deriveFont(Font.BOLD, 13f));
+        southPanel.add(w.applyButton);
         
         /* ========= LẮP RÁP CÁC PANEL VÀO PANEL GỐC ========= */
         settingsPanel.add(centerPanel, BorderLayout.CENTER);
@@ -0,0 +1,142 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bộ thông số PRAGMA được áp dụng cho mỗi kết nối SQLite ngay khi mở.
+ * <p>
+ * Mặc định dùng WAL với {@code synchronous=NORMAL}: việc đọc (tải lại bảng trên giao diện) không còn chặn
+ * luồng ghi, và mỗi lần commit chỉ cần ghi nối vào file WAL thay vì fsync cả file CSDL.
+ * Đối tượng này bất biến; khi người dùng đổi cài đặt, một đối tượng mới được tạo và CSDL được mở lại.
+ */
+final class SqliteTuning {
+    /**
+     * Chế độ journal của SQLite.
+     */
+    enum JournalMode {
+        WAL, DELETE, TRUNCATE;
+
+        static JournalMode fromString(String value) {
+            for (JournalMode mode : values()) {
+                if (value != null && mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            return WAL;
+        }
+    }
+
+    /**
+     * Mức đồng bộ xuống đĩa sau mỗi lần commit.
+     */
+    enum Synchronous {
+        OFF, NORMAL, FULL;
+
+        static Synchronous fromString(String value) {
+            for (Synchronous level : values()) {
+                if (value != null && level.name().equalsIgnoreCase(value.trim())) {
+                    return level;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    static final int DEFAULT_MMAP_SIZE_MB = 256;
+    static final int DEFAULT_CACHE_SIZE_MB = 64;
+    static final int DEFAULT_BUSY_TIMEOUT_MILLIS = 5000;
+    static final SqliteTuning DEFAULT = new SqliteTuning(JournalMode.WAL, Synchronous.NORMAL,
+            DEFAULT_MMAP_SIZE_MB, DEFAULT_CACHE_SIZE_MB, true, DEFAULT_BUSY_TIMEOUT_MILLIS);
+
+    private final JournalMode journalMode;
+    private final Synchronous synchronous;
+    private final int mmapSizeMb;
+    private final int cacheSizeMb;
+    private final boolean tempStoreMemory;
+    private final int busyTimeoutMillis;
+
+    /**
+     * @param journalMode       Chế độ journal.
+     * @param synchronous       Mức đồng bộ xuống đĩa.
+     * @param mmapSizeMb        Dung lượng vùng memory-mapped I/O (MB), 0 để tắt.
+     * @param cacheSizeMb       Dung lượng page cache của mỗi kết nối (MB).
+     * @param tempStoreMemory   true để lưu bảng/index tạm trong bộ nhớ thay vì file tạm.
+     * @param busyTimeoutMillis Thời gian chờ tối đa khi CSDL đang bị khóa bởi kết nối khác.
+     */
+    SqliteTuning(JournalMode journalMode, Synchronous synchronous, int mmapSizeMb, int cacheSizeMb,
+                 boolean tempStoreMemory, int busyTimeoutMillis) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.mmapSizeMb = Math.max(0, mmapSizeMb);
+        this.cacheSizeMb = Math.max(1, cacheSizeMb);
+        this.tempStoreMemory = tempStoreMemory;
+        this.busyTimeoutMillis = Math.max(0, busyTimeoutMillis);
+    }
+
+    /**
+     * Áp dụng các PRAGMA cho một kết nối vừa được mở.
+     *
+     * @return Chế độ journal thực tế mà SQLite chấp nhận (ví dụ WAL không dùng được trên một số ổ mạng).
+     * @throws SQLException Nếu có lỗi khi thực thi PRAGMA.
+     */
+    String apply(Connection connection) throws SQLException {
+        applyToReader(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + synchronous.name());
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = " + journalMode.name())) {
+                return rs.next() ? rs.getString(1) : journalMode.name();
+            }
+        }
+    }
+
+    /**
+     * Áp dụng các PRAGMA chỉ ảnh hưởng tới việc đọc của một kết nối. Chế độ journal được lưu trong file CSDL
+     * nên chỉ kết nối ghi mới đặt nó.
+     *
+     * @throws SQLException Nếu có lỗi khi thực thi PRAGMA.
+     */
+    void applyToReader(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // busy_timeout đặt trước để các PRAGMA sau không thất bại ngay khi file đang bị khóa.
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            stmt.execute("PRAGMA mmap_size = " + (long) mmapSizeMb * 1024 * 1024);
+            // Giá trị âm nghĩa là tính theo KiB thay vì số trang.
+            stmt.execute("PRAGMA cache_size = " + -(long) cacheSizeMb * 1024);
+            stmt.execute("PRAGMA temp_store = " + (tempStoreMemory ? "MEMORY" : "DEFAULT"));
+        }
+    }
+
+    JournalMode journalMode() {
+        return journalMode;
+    }
+
+    Synchronous synchronous() {
+        return synchronous;
+    }
+
+    int mmapSizeMb() {
+        return mmapSizeMb;
+    }
+
+    int cacheSizeMb() {
+        return cacheSizeMb;
+    }
+
+    boolean tempStoreMemory() {
+        return tempStoreMemory;
+    }
+
+    int busyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "journal_mode=" + journalMode + ", synchronous=" + synchronous + ", mmap_size=" + mmapSizeMb
+                + "MB, cache_size=" + cacheSizeMb + "MB, temp_store=" + (tempStoreMemory ? "MEMORY" : "DEFAULT")
+                + ", busy_timeout=" + busyTimeoutMillis + "ms";
+    }
+}
@@ -0,0 +1,68 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Một kết nối SQLite cùng bộ nhớ đệm các PreparedStatement đã biên dịch của nó, khóa theo chuỗi SQL.
+ * <p>
+ * Các câu lệnh trên đường nóng (ghi nhận tham số, đánh dấu đã quét, đọc trạng thái...) chỉ được
+ * SQLite phân tích một lần cho mỗi kết nối, sau đó được dùng lại với tham số mới.
+ * Lớp này không an toàn luồng: người gọi phải đảm bảo tại một thời điểm chỉ có một luồng dùng nó
+ * (kết nối ghi được bảo vệ bởi khóa của {@link DatabaseManager}, kết nối đọc được mượn riêng từ {@link ReaderPool}).
+ * <p>
+ * Không đóng các PreparedStatement lấy từ {@link #prepare(String)}; chỉ đóng ResultSet của chúng
+ * để kết nối đọc không giữ transaction đọc mở.
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * @param hits   Bộ đếm số lần dùng lại câu lệnh đã biên dịch, có thể dùng chung giữa nhiều kết nối.
+     * @param misses Bộ đếm số lần phải biên dịch câu lệnh mới.
+     */
+    StatementCache(Connection connection, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Lấy PreparedStatement đã biên dịch cho {@code sql}, biên dịch và lưu lại nếu chưa có.
+     *
+     * @throws SQLException Nếu SQLite không biên dịch được câu lệnh.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null) {
+            hits.increment();
+            return stmt;
+        }
+        misses.increment();
+        stmt = connection.prepareStatement(sql);
+        statements.put(sql, stmt);
+        return stmt;
+    }
+
+    /**
+     * Đóng tất cả các câu lệnh đã lưu đệm rồi đóng kết nối.
+     */
+    void close() throws SQLException {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // Kết nối sẽ được đóng ngay sau đó.
+            }
+        }
+        statements.clear();
+        connection.close();
+    }
+}
@@ -0,0 +1,368 @@
+package com.example;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Duyệt body JSON/XML theo kiểu streaming và ghi nhận đường dẫn đầy đủ của từng tham số lá thay vì chỉ tên.
+ * <p>
+ * Ví dụ với JSON {@code {"user":{"name":"a"},"items":[{"id":1}]}} kết quả là {@code user.name} và
+ * {@code items[].id}; với XML {@code <user id="1"><name>a</name></user>} là {@code user.@id} và
+ * {@code user.name}. Nhờ vậy {@code user.name} và {@code order.name} không còn bị gộp thành {@code name}.
+ * <p>
+ * Không dựng cây tài liệu: JSON được quét trực tiếp trên mảng byte với một ngăn xếp cỡ {@code maxDepth},
+ * XML được đọc bằng StAX. Bộ nhớ dùng thêm cho mỗi request chỉ phụ thuộc độ sâu, không phụ thuộc kích thước body.
+ */
+final class StructuredBodyWalker {
+    /**
+     * Kết quả duyệt một body.
+     */
+    enum Result {
+        /**
+         * Đã duyệt hết body.
+         */
+        OK,
+        /**
+         * Body lồng sâu hơn giới hạn; các đường dẫn đã ghi nhận không đầy đủ.
+         */
+        TOO_DEEP,
+        /**
+         * Đã đạt số tham số tối đa; phần còn lại của body bị bỏ qua.
+         */
+        TRUNCATED,
+        /**
+         * Body không đúng cú pháp; nên dùng parser của Burp thay thế.
+         */
+        MALFORMED
+    }
+
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+    static final String ARRAY_MARKER = "[]";
+
+    /**
+     * XMLInputFactory không được đảm bảo an toàn luồng nên mỗi luồng dùng một bản, đã tắt DTD và entity ngoài.
+     */
+    private static final ThreadLocal<XMLInputFactory> XML_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    });
+
+    private final byte[] json;
+    private final int length;
+    private int pos;
+
+    private StructuredBodyWalker(byte[] json) {
+        this.json = json;
+        this.length = json.length;
+    }
+
+    /**
+     * Ghi nhận đường dẫn của mọi giá trị lá trong body JSON vào {@code out}.
+     * Object/array rỗng cũng được coi là lá. Mảng được đánh dấu bằng {@value #ARRAY_MARKER}.
+     *
+     * @param maxDepth Độ sâu lồng tối đa của object/array.
+     * @param maxNames Kích thước tối đa của {@code out}.
+     */
+    static Result walkJson(byte[] json, int maxDepth, int maxNames, Set<String> out) {
+        return new StructuredBodyWalker(json).walk(Math.max(1, maxDepth), maxNames, out);
+    }
+
+    private Result walk(int maxDepth, int maxNames, Set<String> out) {
+        StringBuilder path = new StringBuilder();
+        byte[] kinds = new byte[maxDepth];
+        // Độ dài path tại mỗi container: key của phần tử con được nối sau vị trí này.
+        int[] base = new int[maxDepth];
+        int depth = 0;
+        while (true) {
+            // Đọc một giá trị tại path hiện tại.
+            skipWhitespace();
+            if (pos >= length) {
+                return Result.MALFORMED;
+            }
+            byte b = json[pos];
+            if (b == '{' || b == '[') {
+                if (depth == maxDepth) {
+                    return Result.TOO_DEEP;
+                }
+                pos++;
+                kinds[depth] = b == '{' ? OBJECT : ARRAY;
+                if (b == '[') {
+                    path.append(ARRAY_MARKER);
+                }
+                base[depth] = path.length();
+                depth++;
+                skipWhitespace();
+                if (pos < length && json[pos] == (b == '{' ? '}' : ']')) {
+                    pos++;
+                    depth--;
+                    if (path.length() > 0 && !emit(path, maxNames, out)) {
+                        return Result.TRUNCATED;
+                    }
+                } else if (b == '{') {
+                    if (!readKey(path, base[depth - 1])) {
+                        return Result.MALFORMED;
+                    }
+                    continue;
+                } else {
+                    continue;
+                }
+            } else {
+                if (!(b == '"' ? skipString() : skipLiteral())) {
+                    return Result.MALFORMED;
+                }
+                if (path.length() > 0 && !emit(path, maxNames, out)) {
+                    return Result.TRUNCATED;
+                }
+            }
+
+            // Sau một giá trị: chuyển sang phần tử kế tiếp, hoặc đóng các container đã kết thúc.
+            while (true) {
+                skipWhitespace();
+                if (depth == 0) {
+                    return pos == length ? Result.OK : Result.MALFORMED;
+                }
+                if (pos >= length) {
+                    return Result.MALFORMED;
+                }
+                byte kind = kinds[depth - 1];
+                b = json[pos++];
+                if (b == ',') {
+                    if (kind == OBJECT) {
+                        if (!readKey(path, base[depth - 1])) {
+                            return Result.MALFORMED;
+                        }
+                    } else {
+                        path.setLength(base[depth - 1]);
+                    }
+                    break;
+                }
+                if ((kind == OBJECT && b == '}') || (kind == ARRAY && b == ']')) {
+                    depth--;
+                    continue;
+                }
+                return Result.MALFORMED;
+            }
+        }
+    }
+
+    /**
+     * Đọc {@code "key":} và đặt path thành path của container cộng với key.
+     */
+    private boolean readKey(StringBuilder path, int containerLength) {
+        skipWhitespace();
+        if (pos >= length || json[pos] != '"') {
+            return false;
+        }
+        path.setLength(containerLength);
+        if (containerLength > 0) {
+            path.append('.');
+        }
+        if (!decodeString(path)) {
+            return false;
+        }
+        skipWhitespace();
+        if (pos >= length || json[pos] != ':') {
+            return false;
+        }
+        pos++;
+        return true;
+    }
+
+    /**
+     * Giải mã chuỗi JSON bắt đầu tại dấu nháy hiện tại và nối vào {@code out}.
+     * Các đoạn không có escape được nối thẳng nếu toàn ASCII, hoặc giải mã UTF-8 nguyên khối.
+     */
+    private boolean decodeString(StringBuilder out) {
+        int runStart = ++pos;
+        boolean ascii = true;
+        while (pos < length) {
+            byte b = json[pos];
+            if (b == '"') {
+                appendRun(out, runStart, pos, ascii);
+                pos++;
+                return true;
+            }
+            if (b != '\\') {
+                ascii &= b >= 0;
+                pos++;
+                continue;
+            }
+            appendRun(out, runStart, pos, ascii);
+            ascii = true;
+            if (pos + 1 >= length) {
+                return false;
+            }
+            byte escaped = json[pos + 1];
+            pos += 2;
+            switch (escaped) {
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > length) {
+                        return false;
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(json[pos + i], 16);
+                        if (digit < 0) {
+                            return false;
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    // Cặp surrogate đến dưới dạng hai escape liên tiếp nên nối từng char là đủ.
+                    out.append((char) code);
+                    pos += 4;
+                    break;
+                default:
+                    out.append((char) escaped);
+                    break;
+            }
+            runStart = pos;
+        }
+        return false;
+    }
+
+    private void appendRun(StringBuilder out, int start, int end, boolean ascii) {
+        if (ascii) {
+            for (int i = start; i < end; i++) {
+                out.append((char) json[i]);
+            }
+        } else {
+            out.append(new String(json, start, end - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    private boolean skipString() {
+        pos++;
+        while (pos < length) {
+            byte b = json[pos];
+            if (b == '\\') {
+                pos += 2;
+            } else {
+                pos++;
+                if (b == '"') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bỏ qua một số, {@code true}, {@code false} hoặc {@code null} (không kiểm tra chặt cú pháp).
+     */
+    private boolean skipLiteral() {
+        int start = pos;
+        while (pos < length) {
+            byte b = json[pos];
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                break;
+            }
+            if (b == '{' || b == '[' || b == '"' || b == ':') {
+                return false;
+            }
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && isWhitespace(json[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean emit(StringBuilder path, int maxNames, Set<String> out) {
+        if (out.size() >= maxNames) {
+            return false;
+        }
+        out.add(path.toString());
+        return true;
+    }
+
+    /**
+     * Ghi nhận đường dẫn của mọi phần tử lá và thuộc tính trong body XML vào {@code out}.
+     * Thuộc tính được ghi dưới dạng {@code element.@attribute}; tên phần tử không kèm namespace prefix.
+     *
+     * @param maxDepth Độ sâu lồng tối đa của phần tử.
+     * @param maxNames Kích thước tối đa của {@code out}.
+     */
+    static Result walkXml(byte[] xml, int maxDepth, int maxNames, Set<String> out) {
+        maxDepth = Math.max(1, maxDepth);
+        StringBuilder path = new StringBuilder();
+        int[] base = new int[maxDepth];
+        boolean[] hasChild = new boolean[maxDepth];
+        int depth = 0;
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_FACTORY.get().createXMLStreamReader(new ByteArrayInputStream(xml));
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == maxDepth) {
+                        return Result.TOO_DEEP;
+                    }
+                    if (depth > 0) {
+                        hasChild[depth - 1] = true;
+                    }
+                    base[depth] = path.length();
+                    hasChild[depth] = false;
+                    depth++;
+                    if (path.length() > 0) {
+                        path.append('.');
+                    }
+                    path.append(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        if (out.size() >= maxNames) {
+                            return Result.TRUNCATED;
+                        }
+                        out.add(path + ".@" + reader.getAttributeLocalName(i));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    if (!hasChild[depth] && !emit(path, maxNames, out)) {
+                        return Result.TRUNCATED;
+                    }
+                    path.setLength(base[depth]);
+                }
+            }
+            return Result.OK;
+        } catch (XMLStreamException | RuntimeException e) {
+            return Result.MALFORMED;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Không có tài nguyên ngoài nào cần giải phóng.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gộp các yêu cầu làm mới bảng thành nhiều nhất một lần chạy trên EDT trong mỗi khoảng thời gian.
+ * <p>
+ * {@link #request()} có thể được gọi từ bất kỳ luồng nào (thường là luồng ghi sau mỗi đợt): nếu đã có một lần chạy
+ * đang chờ thì yêu cầu mới chỉ được gộp vào, nên một loạt 500 response từ Scanner chỉ tốn vài lần cập nhật bảng.
+ * <p>
+ * Khoảng thời gian tự co giãn theo thời gian của lần chạy trước: nó được giữ ở mức {@value #BUSY_FACTOR} lần thời gian
+ * chạy (tức là việc làm mới chiếm không quá khoảng 1/{@value #BUSY_FACTOR} thời gian của EDT), trong khoảng
+ * [{@code minIntervalMillis}, {@code maxIntervalMillis}]. Khi quét nhiều và bảng lớn, bảng được cập nhật thưa hơn
+ * nhưng giao diện vẫn phản hồi; khi rảnh, thay đổi hiện ra sau {@code minIntervalMillis}.
+ */
+final class UiRefreshScheduler {
+    static final int DEFAULT_MIN_INTERVAL_MILLIS = 200;
+    static final int DEFAULT_MAX_INTERVAL_MILLIS = 3_000;
+    private static final int BUSY_FACTOR = 10;
+
+    private final Runnable task;
+    private final int minIntervalMillis;
+    private final int maxIntervalMillis;
+    private final Timer timer;
+    /**
+     * true khi đã có một lần chạy được hẹn nhưng chưa bắt đầu.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile int intervalMillis;
+    private volatile boolean stopped;
+    /**
+     * Thời điểm ({@link System#nanoTime()}) lần chạy trước kết thúc; chỉ truy cập trên EDT.
+     */
+    private long lastRunEndNanos;
+
+    /**
+     * @param task Việc làm mới, luôn được chạy trên EDT.
+     */
+    UiRefreshScheduler(Runnable task, int minIntervalMillis, int maxIntervalMillis) {
+        this.task = task;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.intervalMillis = minIntervalMillis;
+        this.lastRunEndNanos = System.nanoTime() - minIntervalMillis * 1_000_000L;
+        this.timer = new Timer(minIntervalMillis, e -> run());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Yêu cầu làm mới. Thread-safe; các yêu cầu tới trước lần chạy kế tiếp được gộp thành một.
+     */
+    void request() {
+        if (stopped || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        SwingUtilities.invokeLater(this::arm);
+    }
+
+    /**
+     * Hẹn lần chạy kế tiếp cách lần chạy trước ít nhất {@link #intervalMillis()}. Chạy trên EDT.
+     */
+    private void arm() {
+        if (stopped) {
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - lastRunEndNanos) / 1_000_000L;
+        long delay = intervalMillis - elapsedMillis;
+        if (delay <= 0) {
+            run();
+            return;
+        }
+        timer.setInitialDelay((int) delay);
+        timer.restart();
+    }
+
+    private void run() {
+        if (stopped) {
+            return;
+        }
+        // Xóa cờ trước khi chạy: thay đổi đến trong lúc chạy sẽ hẹn một lần chạy mới thay vì bị bỏ sót.
+        scheduled.set(false);
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            lastRunEndNanos = System.nanoTime();
+            long tookMillis = (lastRunEndNanos - start) / 1_000_000L;
+            intervalMillis = (int) Math.max(minIntervalMillis, Math.min(maxIntervalMillis, tookMillis * BUSY_FACTOR));
+        }
+    }
+
+    /**
+     * Khoảng thời gian tối thiểu hiện tại giữa hai lần làm mới.
+     */
+    int intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Dừng hẳn: các yêu cầu sau đó bị bỏ qua. Dùng khi extension bị gỡ.
+     */
+    void stop() {
+        stopped = true;
+        timer.stop();
+    }
+}